@@ -0,0 +1,113 @@
+package edu.sjsu.android.videoplayer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal timing loop for the JVM microbenchmarks. Each measurement runs an operation a
+ * fixed number of times per run, after untimed warm-up runs, and keeps per-op times of every
+ * run; results of a suite are written as one JSON file under {@code bench.outputDir}.
+ * Workload sizes and run counts come from {@code bench.*} system properties.
+ */
+final class BenchmarkRunner {
+
+    interface Op {
+        /** Performs operation {@code i} of a run; the result only keeps the work alive. */
+        long run(int i);
+    }
+
+    private static final int WARMUP_RUNS = intProperty("bench.warmup", 3);
+    private static final int MEASURED_RUNS = intProperty("bench.runs", 10);
+
+    private final String suite;
+    private final StringBuilder results = new StringBuilder(4096);
+    private int resultCount;
+    private volatile long sink;
+
+    BenchmarkRunner(String suite) {
+        this.suite = suite;
+    }
+
+    static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, Integer.toString(defaultValue)).trim());
+    }
+
+    /** Comma separated sizes, e.g. {@code -Dbench.strokes=10,1000}. */
+    static int[] sizes(String name, String defaults) {
+        String[] parts = System.getProperty(name, defaults).split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) sizes[i] = Integer.parseInt(parts[i].trim());
+        return sizes;
+    }
+
+    /**
+     * Times {@code ops} calls of {@code op} per run. {@code setup} runs untimed before every
+     * run, so operations that consume state (erasing, say) start each run from the same place.
+     */
+    void measure(String name, String param, int size, int ops, Runnable setup, Op op) {
+        long[] nsPerOp = new long[MEASURED_RUNS];
+        long allocated = 0;
+        for (int run = -WARMUP_RUNS; run < MEASURED_RUNS; run++) {
+            if (setup != null) setup.run();
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long acc = 0;
+            for (int i = 0; i < ops; i++) acc += op.run(i);
+            long elapsed = System.nanoTime() - start;
+            long bytes = allocatedBytes() - bytesBefore;
+            sink += acc;
+            if (run < 0) continue;
+            nsPerOp[run] = elapsed / ops;
+            allocated += bytes;
+        }
+        Arrays.sort(nsPerOp);
+        long bytesPerOp = allocatedBytes() < 0 ? -1 : allocated / ((long) ops * MEASURED_RUNS);
+        System.out.println(String.format(Locale.US, "%s.%s %s=%d: median %d ns/op, p90 %d ns/op, %d B/op",
+                suite, name, param, size, percentile(nsPerOp, 0.5), percentile(nsPerOp, 0.9), bytesPerOp));
+
+        if (resultCount++ > 0) results.append(',');
+        results.append("{\"name\":\"").append(name)
+                .append("\",\"param\":\"").append(param)
+                .append("\",\"size\":").append(size)
+                .append(",\"ops_per_run\":").append(ops)
+                .append(",\"runs\":").append(MEASURED_RUNS)
+                .append(",\"ns_per_op\":{\"min\":").append(nsPerOp[0])
+                .append(",\"median\":").append(percentile(nsPerOp, 0.5))
+                .append(",\"p90\":").append(percentile(nsPerOp, 0.9))
+                .append(",\"max\":").append(nsPerOp[nsPerOp.length - 1])
+                .append("},\"bytes_per_op\":").append(bytesPerOp)
+                .append('}');
+    }
+
+    /** Writes {@code <suite>.json}; call once every measurement is done. */
+    void write() throws IOException {
+        File dir = new File(System.getProperty("bench.outputDir", "build/benchmarks"));
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        String json = "{\"suite\":\"" + suite
+                + "\",\"jvm\":\"" + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                + "\",\"os\":\"" + System.getProperty("os.name") + " " + System.getProperty("os.arch")
+                + "\",\"results\":[" + results + "]}";
+        try (FileOutputStream out = new FileOutputStream(new File(dir, suite + ".json"))) {
+            out.write(json.getBytes(Charset.forName("UTF-8")));
+        }
+    }
+
+    // Nearest rank over sorted per-run times
+    private static long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    // Bytes allocated by this thread so far, or -1 where the JVM cannot tell
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
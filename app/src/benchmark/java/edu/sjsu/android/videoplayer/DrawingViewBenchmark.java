@@ -0,0 +1,167 @@
+package edu.sjsu.android.videoplayer;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Annotation hot paths: rebuilding and drawing the stroke layer, erasing against N strokes,
+ * ingesting touch events, and allocating strokes. Native graphics, so rasterizing costs
+ * something close to real.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class DrawingViewBenchmark {
+
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+    private static final int[] STROKES = BenchmarkRunner.sizes("bench.strokes", "10,100,1000,5000");
+    private static final int[] POINTS = BenchmarkRunner.sizes("bench.points", "16,64,256");
+    private static final int TOUCH_EVENTS = BenchmarkRunner.intProperty("bench.touchEvents", 2000);
+    private static final int FRAME_EVENTS = BenchmarkRunner.intProperty("bench.frameEvents", 240);
+    private static final int ERASE_EVENTS = BenchmarkRunner.intProperty("bench.eraseEvents", 256);
+    private static final StrokeStyle STYLE = StrokeStyle.of(0xffff0000, 8f);
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner("DrawingViewBenchmark");
+
+    private DrawingView view;
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        view = new DrawingView(RuntimeEnvironment.getApplication(), null);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        view.setDrawingEnabled(true);
+        canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    @AfterClass
+    public static void writeResults() throws Exception {
+        runner.write();
+    }
+
+    // Freehand strokes scattered over the view, seeded so every run sees the same scene
+    private static List<Stroke> strokes(int count, int points) {
+        Random random = new Random(count * 31L + points);
+        List<Stroke> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) out.add(new Stroke(i, DrawingView.Shape.FREE, STYLE,
+                walk(random, points), Long.MIN_VALUE, Long.MAX_VALUE));
+        return out;
+    }
+
+    private static float[] walk(Random random, int points) {
+        float[] pts = new float[points * 2];
+        float x = random.nextFloat() * WIDTH, y = random.nextFloat() * HEIGHT;
+        for (int p = 0; p < points; p++) {
+            x = Math.max(0, Math.min(WIDTH, x + random.nextFloat() * 24 - 12));
+            y = Math.max(0, Math.min(HEIGHT, y + random.nextFloat() * 24 - 12));
+            pts[2 * p] = x;
+            pts[2 * p + 1] = y;
+        }
+        return pts;
+    }
+
+    // A drag sampled every 4 ms: DOWN, MOVEs, UP
+    private static MotionEvent[] drag(int count, float[] path) {
+        MotionEvent[] events = new MotionEvent[count];
+        for (int i = 0; i < count; i++) {
+            int action = i == 0 ? MotionEvent.ACTION_DOWN : i == count - 1 ? MotionEvent.ACTION_UP : MotionEvent.ACTION_MOVE;
+            int p = i % (path.length / 2);
+            events[i] = MotionEvent.obtain(0, i * 4L, action, path[2 * p], path[2 * p + 1], 0);
+        }
+        return events;
+    }
+
+    @Test
+    public void layerRebuildAndDraw() {
+        for (int n : STROKES) {
+            List<Stroke> scene = strokes(n, 64);
+            // Opening a video: index every stroke and rasterize the visible ones into the layer
+            runner.measure("set_strokes", "strokes", n, 1, null, i -> {
+                view.setStrokes(scene);
+                return i;
+            });
+            view.setStrokes(scene);
+            // Steady state: the layer is blitted whatever the stroke count
+            runner.measure("on_draw", "strokes", n, 100, null, i -> {
+                view.draw(canvas);
+                return i;
+            });
+        }
+    }
+
+    @Test
+    public void eraseScaling() {
+        Random random = new Random(7);
+        MotionEvent[] taps = new MotionEvent[ERASE_EVENTS];
+        for (int i = 0; i < taps.length; i++) {
+            taps[i] = MotionEvent.obtain(0, i, MotionEvent.ACTION_DOWN, random.nextFloat() * WIDTH, random.nextFloat() * HEIGHT, 0);
+        }
+        view.setTool(DrawingView.Tool.ERASER);
+        for (int n : STROKES) {
+            List<Stroke> scene = strokes(n, 64);
+            // Taps that hit remove a stroke, so every run starts from the full scene
+            runner.measure("erase_tap", "strokes", n, taps.length, () -> view.setStrokes(scene),
+                    i -> view.onTouchEvent(taps[i]) ? 1 : 0);
+        }
+        for (MotionEvent e : taps) e.recycle();
+    }
+
+    @Test
+    public void touchIngestion() {
+        float[] path = walk(new Random(11), 512);
+        MotionEvent[] events = drag(TOUCH_EVENTS, path);
+        MotionEvent[] frames = drag(FRAME_EVENTS, path);
+        view.setTool(DrawingView.Tool.DRAW);
+        view.setShape(DrawingView.Shape.FREE);
+        for (boolean lowLatency : new boolean[]{false, true}) {
+            view.setLowLatencyInk(lowLatency);
+            String name = lowLatency ? "touch_event_low_latency" : "touch_event";
+            runner.measure(name, "events", TOUCH_EVENTS, events.length,
+                    () -> view.setStrokes(Collections.<Stroke>emptyList()),
+                    i -> view.dispatchTouchEvent(events[i]) ? 1 : 0);
+            // One sample per frame, each followed by the draw it invalidated
+            runner.measure(name + "_and_draw", "events", FRAME_EVENTS, frames.length,
+                    () -> view.setStrokes(Collections.<Stroke>emptyList()), i -> {
+                        view.dispatchTouchEvent(frames[i]);
+                        view.draw(canvas);
+                        return i;
+                    });
+        }
+        for (MotionEvent e : events) e.recycle();
+        for (MotionEvent e : frames) e.recycle();
+    }
+
+    @Test
+    public void strokeAllocation() {
+        for (int points : POINTS) {
+            float[][] paths = new float[64][];
+            Random random = new Random(points);
+            for (int i = 0; i < paths.length; i++) paths[i] = walk(random, points);
+            // What ACTION_UP does: copy the live points and build the immutable stroke
+            runner.measure("new_stroke", "points", points, 10_000, null, i -> {
+                float[] pts = Arrays.copyOf(paths[i % paths.length], points * 2);
+                Stroke s = new Stroke(i, DrawingView.Shape.FREE, STYLE, pts, Long.MIN_VALUE, Long.MAX_VALUE);
+                return s.id;
+            });
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+/**
+ * Playback-control paths that run per step or per displayed frame: the frame index lookups
+ * behind a frame step, and the seek bar update the playhead ticker makes on every frame.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class PlaybackControlBenchmark {
+
+    private static final int[] FRAMES = BenchmarkRunner.sizes("bench.frames", "2400,24000,240000");
+    private static final int[] MARKERS = BenchmarkRunner.sizes("bench.markers", "0,64,1024");
+    private static final int DURATION_MS = 600_000;
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner("PlaybackControlBenchmark");
+
+    @AfterClass
+    public static void writeResults() throws Exception {
+        runner.write();
+    }
+
+    // 240 fps in decode order, B-frame pairs swapped, keyframe every 8 frames
+    private static FrameIndex index240fps(int frames) {
+        FrameIndex.Builder builder = new FrameIndex.Builder();
+        for (int i = 0; i < frames; i += 2) {
+            if (i + 1 < frames) builder.add((i + 1) * 1_000_000L / 240, false);
+            builder.add(i * 1_000_000L / 240, i % 8 == 0);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void frameStep() {
+        for (int n : FRAMES) {
+            FrameIndex index = index240fps(n);
+            long[] pos = {0};
+            // What a step does before any seek: resolve the frame at the target, step, and map back
+            runner.measure("step_frame", "frames", n, 10_000, () -> pos[0] = 0, i -> {
+                int frame = index.step(index.frameAtMs(pos[0]), 1);
+                pos[0] = frame == index.size() - 1 ? 0 : index.positionMs(frame);
+                return frame;
+            });
+            runner.measure("key_frame_lookup", "frames", n, 10_000, null,
+                    i -> index.keyFrameAtOrBefore((int) ((i * 7919L) % n)));
+        }
+    }
+
+    @Test
+    public void seekBarUpdate() {
+        Context context = new ContextThemeWrapper(RuntimeEnvironment.getApplication(),
+                androidx.appcompat.R.style.Theme_AppCompat_DayNight_NoActionBar);
+        MarkerSeekBar seekBar = new MarkerSeekBar(context, null);
+        seekBar.measure(View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(96, View.MeasureSpec.EXACTLY));
+        seekBar.layout(0, 0, 1920, 96);
+        seekBar.setMax(DURATION_MS);
+        seekBar.setLoopRange(DURATION_MS / 4, DURATION_MS / 2);
+        Canvas canvas = new Canvas(Bitmap.createBitmap(1920, 96, Bitmap.Config.ARGB_8888));
+        for (int m : MARKERS) {
+            int[] markers = new int[m];
+            for (int k = 0; k < m; k++) markers[k] = (int) ((k + 1L) * DURATION_MS / (m + 1));
+            seekBar.setMarkers(markers);
+            // One playhead tick at 60 Hz: move the thumb and redraw the bar
+            runner.measure("playhead_tick", "markers", m, 600, null, i -> {
+                seekBar.setProgress(i * 16);
+                seekBar.draw(canvas);
+                return seekBar.getProgress();
+            });
+            // Scrub release
+            runner.measure("snap_to_marker", "markers", m, 10_000, null,
+                    i -> seekBar.snapToMarker((i * 61) % DURATION_MS, 250));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package edu.sjsu.android.videoplayer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary annotation journal. A file is a header ({@code "SMVA"}, version byte) followed by
+ * records that are only ever appended:
+ * <pre>
+ *   ADD   id, shape, color, width, flags, [startUs, durationUs], pointCount, points
+ *   ERASE id
+ *   CLEAR
+ * </pre>
+ * Integers are LEB128 varints (zigzag when signed). Points are stored at 1/8 px precision as
+ * deltas from the previous point, which keeps a typical free stroke at 2-3 bytes per point.
+ * A torn record at the end of the file (crash mid-append) is ignored on read, and so is
+ * anything after it; {@link Journal#validBytes} says where the intact part ends. A stroke
+ * with too few points for its shape is skipped without ending the read.
+ */
+final class AnnotationCodec {
+
+    static final int VERSION = 1;
+    static final byte ADD = 1, ERASE = 2, CLEAR = 3;
+
+    private static final byte[] MAGIC = {'S', 'M', 'V', 'A'};
+    private static final float POINT_SCALE = 8f;
+    private static final int FLAG_TIMED = 1;
+
+    /**
+     * Live strokes after replaying a journal, how many records it took to get there, and the
+     * length of the intact prefix; appending is only safe once the file is cut back to it.
+     */
+    static final class Journal {
+        final List<Stroke> strokes;
+        final int records;
+        final int validBytes;
+
+        Journal(List<Stroke> strokes, int records, int validBytes) {
+            this.strokes = strokes;
+            this.records = records;
+            this.validBytes = validBytes;
+        }
+    }
+
+    private AnnotationCodec() {}
+
+    static void writeHeader(ByteArrayOutputStream out) {
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+    }
+
+    static void writeAdd(ByteArrayOutputStream out, Stroke s) {
+        out.write(ADD);
+        writeVarint(out, s.id);
+        out.write(s.shape.ordinal());
+        writeFixed32(out, s.style.color);
+        writeFixed32(out, Float.floatToIntBits(s.style.width));
+        boolean timed = s.startUs != Long.MIN_VALUE || s.endUs != Long.MAX_VALUE;
+        out.write(timed ? FLAG_TIMED : 0);
+        if (timed) {
+            writeVarint(out, zigzag(s.startUs));
+            writeVarint(out, s.endUs - s.startUs);
+        }
+        float[] pts = s.points;
+        writeVarint(out, pts.length / 2);
+        int prevX = 0, prevY = 0;
+        for (int i = 0; i + 1 < pts.length; i += 2) {
+            int qx = Math.round(pts[i] * POINT_SCALE), qy = Math.round(pts[i + 1] * POINT_SCALE);
+            writeVarint(out, zigzag(qx - prevX));
+            writeVarint(out, zigzag(qy - prevY));
+            prevX = qx;
+            prevY = qy;
+        }
+    }
+
+    static void writeErase(ByteArrayOutputStream out, int id) {
+        out.write(ERASE);
+        writeVarint(out, id);
+    }
+
+    static void writeClear(ByteArrayOutputStream out) {
+        out.write(CLEAR);
+    }
+
+    /** Header plus one ADD per stroke: the compacted form of any journal with these live strokes. */
+    static byte[] snapshot(List<Stroke> strokes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + strokes.size() * 64);
+        writeHeader(out);
+        for (int i = 0; i < strokes.size(); i++) {
+            writeAdd(out, strokes.get(i));
+        }
+        return out.toByteArray();
+    }
+
+    static Journal read(ByteBuffer in) throws IOException {
+        int origin = in.position();
+        if (in.remaining() < MAGIC.length + 1) {
+            return new Journal(new ArrayList<Stroke>(), 0, 0);
+        }
+        for (byte b : MAGIC) {
+            if (in.get() != b) throw new IOException("Not an annotation file");
+        }
+        int version = in.get();
+        if (version != VERSION) throw new IOException("Unsupported annotation version " + version);
+
+        Map<Integer, Stroke> live = new LinkedHashMap<>();
+        int records = 0;
+        int valid = in.position() - origin;
+        DrawingView.Shape[] shapes = DrawingView.Shape.values();
+        try {
+            while (in.hasRemaining()) {
+                int type = in.get();
+                if (type == ADD) {
+                    int id = (int) readVarint(in);
+                    DrawingView.Shape shape = shapes[in.get()];
+                    StrokeStyle style = StrokeStyle.of(in.getInt(), Float.intBitsToFloat(in.getInt()));
+                    long start = Long.MIN_VALUE, end = Long.MAX_VALUE;
+                    if ((in.get() & FLAG_TIMED) != 0) {
+                        start = unzigzag(readVarint(in));
+                        end = start + readVarint(in);
+                    }
+                    long count = readVarint(in);
+                    // Every point takes at least two bytes
+                    if (count < 0 || count > in.remaining() / 2) break;
+                    float[] pts = new float[(int) count * 2];
+                    int x = 0, y = 0;
+                    for (int i = 0; i < pts.length; i += 2) {
+                        x += (int) unzigzag(readVarint(in));
+                        y += (int) unzigzag(readVarint(in));
+                        pts[i] = x / POINT_SCALE;
+                        pts[i + 1] = y / POINT_SCALE;
+                    }
+                    // Intact but unusable (lines and circles need two points); later records still count
+                    if (count >= (shape == DrawingView.Shape.FREE ? 1 : 2)) {
+                        live.put(id, new Stroke(id, shape, style, pts, start, end));
+                    }
+                } else if (type == ERASE) {
+                    live.remove((int) readVarint(in));
+                } else if (type == CLEAR) {
+                    live.clear();
+                } else {
+                    // Not a record type: garbage left by an interrupted append
+                    break;
+                }
+                records++;
+                valid = in.position() - origin;
+            }
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException | IOException e) {
+            // Torn tail from an interrupted append; everything before it is intact
+        }
+        List<Stroke> strokes = new ArrayList<>(live.values());
+        Collections.sort(strokes, (a, b) -> Integer.compare(a.id, b.id));
+        return new Journal(strokes, records, valid);
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(ByteBuffer in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeFixed32(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
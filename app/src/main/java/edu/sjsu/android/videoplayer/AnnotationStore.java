@@ -0,0 +1,188 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Persists the annotations of the open video in an {@link AnnotationCodec} journal under
+ * {@code files/annotations}. Edits are encoded on the caller's thread (a few bytes each)
+ * and appended by a single I/O thread; once the journal holds many more records than live
+ * strokes it is rewritten as a snapshot in the background.
+ */
+final class AnnotationStore implements DrawingView.OnStrokesChangedListener {
+
+    interface Callback {
+        void onAnnotationsLoaded(Uri uri, List<Stroke> strokes);
+    }
+
+    private static final String TAG = "AnnotationStore";
+    private static final int COMPACT_SLACK = 64;
+
+    private final File dir;
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+
+    // Mirror of the journal for the open video, touched on the main thread only
+    private final Map<Integer, Stroke> live = new LinkedHashMap<>();
+    private File file;
+    private int records;
+
+    AnnotationStore(Context context) {
+        dir = new File(context.getFilesDir(), "annotations");
+    }
+
+    /** Switches to the journal of {@code uri} and loads it in the background. */
+    void open(Uri uri, Callback callback) {
+        File target = new File(dir, CacheKeys.of(uri.toString()) + ".smva");
+        file = target;
+        live.clear();
+        records = 0;
+        io.execute(() -> {
+            AnnotationCodec.Journal loaded = readJournal(target);
+            AnnotationCodec.Journal journal = loaded != null ? loaded
+                    : new AnnotationCodec.Journal(new ArrayList<Stroke>(), 0, 0);
+            mainHandler.post(() -> {
+                if (file != target) return;
+                // Not persisting at all beats appending to a file that could not be read
+                if (loaded == null) file = null;
+                for (Stroke s : journal.strokes) live.put(s.id, s);
+                records = journal.records;
+                callback.onAnnotationsLoaded(uri, journal.strokes);
+            });
+        });
+    }
+
+    void close() {
+        file = null;
+        live.clear();
+    }
+
+    @Override
+    public void onStrokeAdded(Stroke s) {
+        if (file == null) return;
+        live.put(s.id, s);
+        AnnotationCodec.writeAdd(record, s);
+        append();
+    }
+
+    @Override
+    public void onStrokeErased(Stroke s) {
+        if (file == null) return;
+        live.remove(s.id);
+        AnnotationCodec.writeErase(record, s.id);
+        append();
+    }
+
+    @Override
+    public void onStrokesCleared() {
+        if (file == null) return;
+        live.clear();
+        AnnotationCodec.writeClear(record);
+        append();
+    }
+
+    private void append() {
+        File target = file;
+        byte[] bytes = record.toByteArray();
+        record.reset();
+        records++;
+        if (records > 2 * live.size() + COMPACT_SLACK) {
+            List<Stroke> snapshot = new ArrayList<>(live.values());
+            records = snapshot.size();
+            io.execute(() -> compact(target, snapshot));
+        } else {
+            io.execute(() -> appendRecord(target, bytes));
+        }
+    }
+
+    void shutdown() {
+        io.shutdown();
+    }
+
+    /**
+     * Runs on the I/O thread ahead of any append, so a torn tail is cut off before records
+     * follow it. A file that cannot be read at all (a newer version, an I/O error) is moved
+     * aside to {@code .bad} rather than deleted; null if even that fails.
+     */
+    private AnnotationCodec.Journal readJournal(File f) {
+        long length = f.length();
+        if (length > 0) {
+            AnnotationCodec.Journal journal = null;
+            try (FileInputStream in = new FileInputStream(f); FileChannel channel = in.getChannel()) {
+                journal = AnnotationCodec.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Setting aside unreadable annotations " + f, e);
+            }
+            if (journal != null) {
+                if (journal.validBytes < length) dropTornTail(f, journal);
+                return journal;
+            }
+            File bad = new File(f.getPath() + ".bad");
+            if (!f.renameTo(bad)) {
+                Log.w(TAG, "Could not move " + f + " aside");
+                return null;
+            }
+        }
+        return new AnnotationCodec.Journal(new ArrayList<Stroke>(), 0, 0);
+    }
+
+    // Appending after garbage would hide every later record, so the file is cut back or rewritten
+    private void dropTornTail(File f, AnnotationCodec.Journal journal) {
+        Log.w(TAG, "Dropping torn tail of " + f + " after " + journal.validBytes + " bytes");
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            raf.setLength(journal.validBytes);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not truncate " + f, e);
+            compact(f, journal.strokes);
+        }
+    }
+
+    private void appendRecord(File f, byte[] bytes) {
+        boolean fresh = !f.exists() || f.length() == 0;
+        if (fresh && !dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Cannot create " + dir);
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(f, true)) {
+            if (fresh) {
+                ByteArrayOutputStream header = new ByteArrayOutputStream(8);
+                AnnotationCodec.writeHeader(header);
+                header.writeTo(out);
+            }
+            out.write(bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "Annotation append failed", e);
+        }
+    }
+
+    private void compact(File f, List<Stroke> snapshot) {
+        if (!dir.isDirectory() && !dir.mkdirs()) return;
+        File tmp = new File(f.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(AnnotationCodec.snapshot(snapshot));
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.w(TAG, "Annotation compaction failed", e);
+            return;
+        }
+        if (!tmp.renameTo(f)) Log.w(TAG, "Could not replace " + f);
+    }
+}
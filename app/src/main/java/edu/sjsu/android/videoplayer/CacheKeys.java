@@ -0,0 +1,27 @@
+package edu.sjsu.android.videoplayer;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** File-name safe keys for per-video data stored on disk. */
+final class CacheKeys {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private CacheKeys() {}
+
+    static String of(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(Charset.forName("UTF-8")));
+            char[] out = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                out[2 * i] = HEX[(digest[i] >> 4) & 0xF];
+                out[2 * i + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(out);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
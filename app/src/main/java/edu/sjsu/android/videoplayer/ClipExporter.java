@@ -0,0 +1,169 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exports a frame range with its annotations burned in to an MP4, retimed to a playback
+ * speed. One export at a time; starting another or {@link #cancel()} stops the running one.
+ */
+final class ClipExporter {
+
+    interface Listener {
+        /** Main thread, at most once per percent. */
+        void onExportProgress(float fraction);
+        /** Main thread; {@code file} is null if the export failed or was cancelled. */
+        void onExportFinished(File file);
+    }
+
+    private static final String TAG = "ClipExporter";
+    private static final int MAX_EDGE = 1280;
+    private static final int DECODE_CHUNK = 8;
+    // Fast exports drop frames rather than exceed 60 fps
+    private static final long MIN_FRAME_INTERVAL_US = 1_000_000 / 60;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+    }, "ClipExport"));
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private volatile RenderPipeline running;
+    // Cancel flag of the newest export, created when it is requested so an early cancel sticks
+    private volatile AtomicBoolean cancelled = new AtomicBoolean();
+
+    void export(Context context, Uri uri, FrameIndex index, int first, int last, float speed,
+                List<Stroke> strokes, int viewWidth, int viewHeight, File output, Listener listener) {
+        cancel();
+        AtomicBoolean token = new AtomicBoolean();
+        cancelled = token;
+        Context app = context.getApplicationContext();
+        worker.execute(() -> {
+            File result = null;
+            FrameDecoder decoder = null;
+            DecodedSource source = null;
+            StrokeCompositor compositor = null;
+            try {
+                if (token.get()) throw new CancellationException();
+                decoder = new FrameDecoder(app, uri, index, MAX_EDGE, MAX_EDGE);
+                source = new DecodedSource(decoder, first, last);
+                long startUs = index.timeUs(first);
+                long endUs = last + 1 < index.size() ? index.timeUs(last + 1) : index.timeUs(last) + 1;
+                RenderPipeline pipeline = new RenderPipeline(source.width, source.height, startUs, endUs, speed);
+                pipeline.setMinFrameIntervalUs(MIN_FRAME_INTERVAL_US);
+                compositor = new StrokeCompositor(strokes, viewWidth, viewHeight, source.width, source.height);
+                running = pipeline;
+                if (token.get()) throw new CancellationException();
+                int[] shownPercent = {-1};
+                pipeline.run(source, compositor, new MediaCodecSink(output, pipeline::isStopped), (frames, fraction) -> {
+                    int percent = (int) (fraction * 100);
+                    if (percent == shownPercent[0]) return;
+                    shownPercent[0] = percent;
+                    main.post(() -> listener.onExportProgress(fraction));
+                });
+                result = output;
+            } catch (CancellationException e) {
+                Log.i(TAG, "Export of " + uri + " cancelled");
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Export of " + uri + " failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running = null;
+                if (compositor != null) compositor.release();
+                if (source != null) source.release();
+                if (decoder != null) decoder.release();
+            }
+            File done = result;
+            main.post(() -> listener.onExportFinished(done));
+        });
+    }
+
+    void cancel() {
+        cancelled.set(true);
+        RenderPipeline pipeline = running;
+        if (pipeline != null) pipeline.cancel();
+    }
+
+    void shutdown() {
+        cancel();
+        worker.shutdown();
+    }
+
+    /** Decodes the range in short forward runs and scales every frame to the first one's even size. */
+    private static final class DecodedSource implements RenderPipeline.Source {
+        private final FrameDecoder decoder;
+        private final FrameIndex index;
+        private final int last;
+        private final int width, height;
+        private final Bitmap scratch;
+        private final Canvas canvas;
+        private final Rect bounds;
+        private final Paint filter = new Paint(Paint.FILTER_BITMAP_FLAG);
+        private List<Bitmap> chunk;
+        private int chunkFirst, next;
+
+        DecodedSource(FrameDecoder decoder, int first, int last) throws IOException {
+            this.decoder = decoder;
+            this.index = decoder.getIndex();
+            this.last = last;
+            next = first;
+            loadChunk();
+            Bitmap probe = chunk.isEmpty() ? null : chunk.get(0);
+            if (probe == null) throw new IOException("Cannot decode frame " + first);
+            // The encoder needs even dimensions
+            width = probe.getWidth() & ~1;
+            height = probe.getHeight() & ~1;
+            if (width == 0 || height == 0) throw new IOException("Frame too small");
+            scratch = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            canvas = new Canvas(scratch);
+            bounds = new Rect(0, 0, width, height);
+        }
+
+        @Override
+        public boolean next(RenderPipeline.Frame frame) throws IOException {
+            if (next > last) return false;
+            if (next >= chunkFirst + chunk.size()) loadChunk();
+            Bitmap bitmap = chunk.get(next - chunkFirst);
+            chunk.set(next - chunkFirst, null);
+            if (bitmap == null) throw new IOException("Cannot decode frame " + next);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                bitmap.getPixels(frame.pixels, 0, width, 0, 0, width, height);
+            } else {
+                canvas.drawBitmap(bitmap, null, bounds, filter);
+                scratch.getPixels(frame.pixels, 0, width, 0, 0, width, height);
+            }
+            bitmap.recycle();
+            frame.sourceUs = index.timeUs(next);
+            next++;
+            return true;
+        }
+
+        void release() {
+            scratch.recycle();
+            for (Bitmap b : chunk) {
+                if (b != null) b.recycle();
+            }
+        }
+
+        private void loadChunk() {
+            chunkFirst = next;
+            chunk = decoder.decodeRange(next, Math.min(DECODE_CHUNK, last - next + 1));
+        }
+    }
+}
@@ -2,11 +2,16 @@ package edu.sjsu.android.videoplayer;
 
 import android.content.Context;
 import android.graphics.*;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 public class DrawingView extends View {
@@ -14,66 +19,327 @@ public class DrawingView extends View {
     public enum Tool { DRAW, ERASER }
     public enum Shape { FREE, LINE, CIRCLE }
 
+    /** Notified of user edits, not of strokes handed in through {@link #setStrokes(List)}. */
+    interface OnStrokesChangedListener {
+        void onStrokeAdded(Stroke s);
+        void onStrokeErased(Stroke s);
+        void onStrokesCleared();
+    }
+
+    private static final float ERASE_SLOP = 24f;
+    private static final float GRID_CELL = 96f;
+    private static final long DEFAULT_ANNOTATION_US = 1_000_000;
+    private static final long DEFAULT_HISTORY_BYTES = 4L * 1024 * 1024;
+    private static final long PREDICTION_MS = 16;
+    private static final float MAX_PREDICTION_DP = 48f;
+    private static final Comparator<Stroke> BY_ID = (a, b) -> Integer.compare(a.id, b.id);
+
     private Paint paint;
+    private StrokeStyle style;
     private Tool currentTool = Tool.DRAW;
     private Shape currentShape = Shape.FREE;
-    private Path currentPath;
+    private final Path currentPath = new Path();
+    private boolean drawing;
     private float startX, startY;
     private int currentColor = Color.RED;
     private float strokeWidth = 5f;
 
     private boolean enabled = false;
+    private OnStrokesChangedListener strokesChangedListener;
+    private Histogram drawTimes;
 
-    private class Stroke {
-        Paint paint;
-        Path path;
-        Shape shape;
-        float sx, sy, ex, ey;
+    private int nextStrokeId;
+    private final List<Stroke> strokes = new ArrayList<>();
+    // Position of each stroke in strokes, so removing one is a swap with the last
+    private final IdentityHashMap<Stroke, Integer> strokeSlots = new IdentityHashMap<>();
+    private final SpatialGrid<Stroke> grid = new SpatialGrid<>(GRID_CELL);
+    private final List<Stroke> candidates = new ArrayList<>();
+    private final List<Stroke> regionStrokes = new ArrayList<>();
 
-        Stroke(Paint paint, Path path, Shape shape, float sx, float sy, float ex, float ey) {
-            this.paint = new Paint(paint);
-            this.path = new Path(path);
-            this.shape = shape;
-            this.sx = sx; this.sy = sy; this.ex = ex; this.ey = ey;
+    // Strokes live at the playhead, in id order; constant while the playhead stays in the window
+    private final IntervalIndex<Stroke> timeline = new IntervalIndex<>();
+    private final List<Stroke> visible = new ArrayList<>();
+    private long playheadUs;
+    private long windowStartUs = Long.MIN_VALUE, windowEndUs = Long.MAX_VALUE;
+    private long annotationDurationUs = DEFAULT_ANNOTATION_US;
+
+    private final StrokePainter painter = new StrokePainter();
+    private final EditLog history = new EditLog(DEFAULT_HISTORY_BYTES);
+
+    // Applies undone and redone edits without recording them again
+    private final EditLog.Target historyTarget = new EditLog.Target() {
+        @Override
+        public void addStroke(Stroke s) {
+            insertStroke(s);
+            if (strokesChangedListener != null) strokesChangedListener.onStrokeAdded(s);
         }
-    }
 
-    private final List<Stroke> strokes = new ArrayList<>();
+        @Override
+        public void eraseStroke(Stroke s) {
+            removeStroke(s);
+        }
+
+        @Override
+        public void clearStrokes() {
+            resetStrokes();
+            rebuildLayer();
+            if (strokesChangedListener != null) strokesChangedListener.onStrokesCleared();
+        }
+
+        @Override
+        public void restoreStrokes(List<Stroke> restored) {
+            for (int i = 0; i < restored.size(); i++) {
+                Stroke s = restored.get(i);
+                addToStrokes(s);
+                grid.insert(s, s.left, s.top, s.right, s.bottom);
+                timeline.add(s, s.startUs, s.endUs);
+                if (strokesChangedListener != null) strokesChangedListener.onStrokeAdded(s);
+            }
+            windowStartUs = Long.MAX_VALUE;
+            windowEndUs = Long.MIN_VALUE;
+            setPlayheadUs(playheadUs);
+        }
+
+        @Override
+        public void setStyle(StrokeStyle s) {
+            currentColor = s.color;
+            strokeWidth = s.width;
+            style = s;
+            paint = painter.paintFor(s);
+        }
+    };
+
+    // Points of the in-progress free stroke
+    private float[] livePoints = new float[256];
+    private int livePointCount;
+
+    // Free strokes are smoothed with quadratics through the midpoints of the samples. With
+    // low-latency ink each finished curve piece goes straight into the layer, so a frame only
+    // redraws the tail from the last midpoint through the newest sample and the predicted points
+    private boolean lowLatencyInk = true;
+    private final InkPredictor predictor;
+    private final float[] predicted = new float[2 * InkPredictor.MAX_POINTS];
+    private int predictedCount;
+    private final Path segmentPath = new Path();
+    private final Path tailPath = new Path();
+    private float midX, midY;
+    private final Rect liveBounds = new Rect();
+    private Histogram inkLatency;
+    private long pendingEventMs = -1;
+
+    // Committed strokes rasterized once; only the in-progress shape is drawn per frame
+    private Bitmap layer;
+    private Canvas layerCanvas;
+    private final Rect tmpBounds = new Rect();
 
     public DrawingView(Context context, AttributeSet attrs) {
         super(context, attrs);
-        initPaint();
+        predictor = new InkPredictor(MAX_PREDICTION_DP * getResources().getDisplayMetrics().density);
+        updateStyle();
         setLayerType(LAYER_TYPE_HARDWARE, null);
     }
 
-    private void initPaint() {
-        paint = new Paint();
-        paint.setColor(currentColor);
-        paint.setAntiAlias(true);
-        paint.setStyle(Paint.Style.STROKE);
-        paint.setStrokeWidth(strokeWidth);
-        paint.setStrokeJoin(Paint.Join.ROUND);
-        paint.setStrokeCap(Paint.Cap.ROUND);
+    private void updateStyle() {
+        StrokeStyle previous = style;
+        style = StrokeStyle.of(currentColor, strokeWidth);
+        paint = painter.paintFor(style);
+        if (previous != null) history.recordStyle(previous, style);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (layer != null) layer.recycle();
+        layer = null;
+        layerCanvas = null;
+        if (w > 0 && h > 0) {
+            layer = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+            layerCanvas = new Canvas(layer);
+        }
+        rebuildLayer();
+    }
+
+    private void rebuildLayer() {
+        if (layer == null) return;
+        layer.eraseColor(Color.TRANSPARENT);
+        for (int i = 0; i < visible.size(); i++) {
+            painter.draw(layerCanvas, visible.get(i));
+        }
+        // Ink of a stroke in progress lives in the layer too; the erase above took it with it
+        if (drawing && inkInLayer()) layerCanvas.drawPath(currentPath, paint);
+    }
+
+    /** Moves the annotation timeline to the frame being shown; cheap unless a stroke appears or expires. */
+    public void setPlayheadUs(long timeUs) {
+        playheadUs = timeUs;
+        if (timeUs >= windowStartUs && timeUs < windowEndUs) return;
+        visible.clear();
+        timeline.query(timeUs, visible);
+        Collections.sort(visible, BY_ID);
+        windowStartUs = timeline.windowStart(timeUs);
+        windowEndUs = timeline.windowEnd(timeUs);
+        rebuildLayer();
+        invalidate();
+    }
+
+    /** How long new strokes stay on screen, in video time. Zero or less pins them to the whole clip. */
+    public void setAnnotationDurationUs(long durationUs) {
+        this.annotationDurationUs = durationUs;
+    }
+
+    void setOnStrokesChangedListener(OnStrokesChangedListener listener) {
+        this.strokesChangedListener = listener;
+    }
+
+    /** Records how long each {@link #onDraw(Canvas)} takes, in microseconds. */
+    void setDrawTimeHistogram(Histogram histogram) {
+        this.drawTimes = histogram;
+    }
+
+    /** Records the time from a touch event to the draw that shows it, in milliseconds. */
+    void setInkLatencyHistogram(Histogram histogram) {
+        this.inkLatency = histogram;
+    }
+
+    void setLowLatencyInk(boolean enabled) {
+        lowLatencyInk = enabled;
+    }
+
+    boolean isLowLatencyInk() {
+        return lowLatencyInk;
+    }
+
+    /** Snapshot of every committed stroke, in no particular order. */
+    List<Stroke> getStrokes() {
+        return new ArrayList<>(strokes);
+    }
+
+    /** Replaces all strokes, e.g. with the saved annotations of a newly opened video. */
+    void setStrokes(List<Stroke> loaded) {
+        resetStrokes();
+        history.clear();
+        for (int i = 0; i < loaded.size(); i++) {
+            Stroke s = loaded.get(i);
+            addToStrokes(s);
+            grid.insert(s, s.left, s.top, s.right, s.bottom);
+            timeline.add(s, s.startUs, s.endUs);
+            nextStrokeId = Math.max(nextStrokeId, s.id + 1);
+        }
+        // Force the live set to be recomputed
+        windowStartUs = Long.MAX_VALUE;
+        windowEndUs = Long.MIN_VALUE;
+        setPlayheadUs(playheadUs);
+    }
+
+    private void resetStrokes() {
+        strokes.clear();
+        strokeSlots.clear();
+        grid.clear();
+        timeline.clear();
+        visible.clear();
+        windowStartUs = Long.MIN_VALUE;
+        windowEndUs = Long.MAX_VALUE;
+    }
+
+    // inkInLayer: the live stroke was already drawn piecewise into the layer
+    private void commitStroke(Stroke s, boolean inkInLayer) {
+        addToStrokes(s);
+        grid.insert(s, s.left, s.top, s.right, s.bottom);
+        timeline.add(s, s.startUs, s.endUs);
+        // The new stroke is live now, so the stable window can only shrink to its range
+        visible.add(s);
+        windowStartUs = Math.max(windowStartUs, s.startUs);
+        windowEndUs = Math.min(windowEndUs, s.endUs);
+        if (inkInLayer) {
+            // Replace the pieces with the stroke drawn in one go
+            redrawRegion(Math.min(s.left, liveBounds.left), Math.min(s.top, liveBounds.top),
+                    Math.max(s.right, liveBounds.right), Math.max(s.bottom, liveBounds.bottom));
+        } else if (layerCanvas != null) {
+            painter.draw(layerCanvas, s);
+        }
+        history.recordAdd(s);
+        if (strokesChangedListener != null) strokesChangedListener.onStrokeAdded(s);
+    }
+
+    // Puts a stroke back, keeping the live set, its window and the layer exact
+    private void insertStroke(Stroke s) {
+        addToStrokes(s);
+        grid.insert(s, s.left, s.top, s.right, s.bottom);
+        timeline.add(s, s.startUs, s.endUs);
+        if (s.isActiveAt(playheadUs)) {
+            int at = Collections.binarySearch(visible, s, BY_ID);
+            if (at < 0) visible.add(-at - 1, s);
+            windowStartUs = Math.max(windowStartUs, s.startUs);
+            windowEndUs = Math.min(windowEndUs, s.endUs);
+            redrawRegion(s.left, s.top, s.right, s.bottom);
+        } else if (s.startUs > playheadUs) {
+            windowEndUs = Math.min(windowEndUs, s.startUs);
+        } else {
+            windowStartUs = Math.max(windowStartUs, s.endUs);
+        }
+    }
+
+    private void addToStrokes(Stroke s) {
+        strokeSlots.put(s, strokes.size());
+        strokes.add(s);
+    }
+
+    private void removeStroke(Stroke s) {
+        Integer slot = strokeSlots.remove(s);
+        if (slot != null) {
+            Stroke last = strokes.remove(strokes.size() - 1);
+            if (last != s) {
+                strokes.set(slot, last);
+                strokeSlots.put(last, slot);
+            }
+        }
+        grid.remove(s, s.left, s.top, s.right, s.bottom);
+        timeline.remove(s);
+        // The live set is kept sorted by id
+        int shown = Collections.binarySearch(visible, s, BY_ID);
+        if (shown >= 0) {
+            visible.remove(shown);
+            redrawRegion(s.left, s.top, s.right, s.bottom);
+        }
+        if (strokesChangedListener != null) strokesChangedListener.onStrokeErased(s);
+    }
+
+    // Repaints one region of the layer from the strokes overlapping it
+    private void redrawRegion(float left, float top, float right, float bottom) {
+        if (layer == null) return;
+        regionStrokes.clear();
+        grid.query(left, top, right, bottom, regionStrokes);
+        Collections.sort(regionStrokes, BY_ID);
+        layerCanvas.save();
+        layerCanvas.clipRect(left, top, right, bottom);
+        layerCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        for (int i = 0; i < regionStrokes.size(); i++) {
+            Stroke s = regionStrokes.get(i);
+            if (s.isActiveAt(playheadUs)) painter.draw(layerCanvas, s);
+        }
+        layerCanvas.restore();
+        regionStrokes.clear();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        long startNs = drawTimes != null ? System.nanoTime() : 0;
         super.onDraw(canvas);
-        for (Stroke s : strokes) {
-            if (s.shape == Shape.FREE) {
-                canvas.drawPath(s.path, s.paint);
-            } else if (s.shape == Shape.LINE) {
-                canvas.drawLine(s.sx, s.sy, s.ex, s.ey, s.paint);
-            } else if (s.shape == Shape.CIRCLE) {
-                float radius = (float) Math.hypot(s.ex - s.sx, s.ey - s.sy);
-                canvas.drawCircle(s.sx, s.sy, radius, s.paint);
-            }
+        if (layer != null) {
+            canvas.drawBitmap(layer, 0, 0, null);
         }
 
         // Draw current shape in progress
-        if (currentPath != null) {
+        if (drawing) {
             if (currentShape == Shape.FREE) {
-                canvas.drawPath(currentPath, paint);
+                if (!lowLatencyInk) canvas.drawPath(currentPath, paint);
+                tailPath.rewind();
+                tailPath.moveTo(midX, midY);
+                tailPath.lineTo(lastX, lastY);
+                for (int i = 0; i < predictedCount; i++) {
+                    tailPath.lineTo(predicted[2 * i], predicted[2 * i + 1]);
+                }
+                canvas.drawPath(tailPath, paint);
             } else if (currentShape == Shape.LINE) {
                 canvas.drawLine(startX, startY, lastX, lastY, paint);
             } else if (currentShape == Shape.CIRCLE) {
@@ -81,10 +347,63 @@ public class DrawingView extends View {
                 canvas.drawCircle(startX, startY, r, paint);
             }
         }
+        if (drawTimes != null) drawTimes.record((System.nanoTime() - startNs) / 1000);
+        if (inkLatency != null && pendingEventMs >= 0) {
+            inkLatency.record(SystemClock.uptimeMillis() - pendingEventMs);
+            pendingEventMs = -1;
+        }
     }
 
     float lastX, lastY;
 
+    // Bounds of the in-progress shape as it would be drawn with the given end point
+    private void shapeBounds(float x, float y, Rect out) {
+        float pad = strokeWidth / 2 + 2;
+        if (currentShape == Shape.CIRCLE) {
+            float r = (float) Math.hypot(x - startX, y - startY) + pad;
+            out.set((int) (startX - r), (int) (startY - r), (int) Math.ceil(startX + r), (int) Math.ceil(startY + r));
+        } else {
+            float fromX = currentShape == Shape.FREE ? lastX : startX;
+            float fromY = currentShape == Shape.FREE ? lastY : startY;
+            out.set((int) (Math.min(fromX, x) - pad), (int) (Math.min(fromY, y) - pad),
+                    (int) Math.ceil(Math.max(fromX, x) + pad), (int) Math.ceil(Math.max(fromY, y) + pad));
+        }
+    }
+
+    private void addLivePoint(float x, float y) {
+        if (livePointCount + 2 > livePoints.length) {
+            livePoints = Arrays.copyOf(livePoints, livePoints.length * 2);
+        }
+        livePoints[livePointCount++] = x;
+        livePoints[livePointCount++] = y;
+    }
+
+    // Moves the live shape to (x, y); free strokes also track what was inked into the layer
+    private void extendLiveShape(float x, float y, long timeMs) {
+        if (currentShape == Shape.FREE) {
+            shapeBounds(x, y, tmpBounds);
+            liveBounds.union(tmpBounds);
+            float mx = (lastX + x) / 2, my = (lastY + y) / 2;
+            currentPath.quadTo(lastX, lastY, mx, my);
+            if (lowLatencyInk && layerCanvas != null) {
+                segmentPath.rewind();
+                segmentPath.moveTo(midX, midY);
+                segmentPath.quadTo(lastX, lastY, mx, my);
+                layerCanvas.drawPath(segmentPath, paint);
+            }
+            midX = mx;
+            midY = my;
+            addLivePoint(x, y);
+            predictor.add(x, y, timeMs);
+        }
+        lastX = x;
+        lastY = y;
+    }
+
+    private boolean inkInLayer() {
+        return lowLatencyInk && currentShape == Shape.FREE && layerCanvas != null;
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent e) {
         if (!enabled) return false;
@@ -92,41 +411,81 @@ public class DrawingView extends View {
         float x = e.getX(), y = e.getY();
         switch (e.getAction()) {
             case MotionEvent.ACTION_DOWN:
-                initPaint();
                 if (currentTool == Tool.ERASER) {
-                    eraseStrokeAt(x, y);
-                    invalidate();
+                    if (eraseStrokeAt(x, y)) invalidate();
                     return true;
                 }
 
-                currentPath = new Path();
+                // Deliver every sample as it arrives instead of once per frame
+                if (lowLatencyInk) requestUnbufferedDispatch(e);
+                currentPath.rewind();
                 currentPath.moveTo(x, y);
+                drawing = true;
+                livePointCount = 0;
+                addLivePoint(x, y);
+                predictor.reset();
+                predictor.add(x, y, e.getEventTime());
+                predictedCount = 0;
                 startX = x;
                 startY = y;
                 lastX = x;
                 lastY = y;
+                midX = x;
+                midY = y;
+                liveBounds.setEmpty();
                 return true;
 
             case MotionEvent.ACTION_MOVE:
-                if (currentTool == Tool.DRAW && currentPath != null) {
+                if (currentTool == Tool.ERASER) {
+                    boolean erased = false;
+                    for (int h = 0; h < e.getHistorySize(); h++) {
+                        erased |= eraseStrokeAt(e.getHistoricalX(h), e.getHistoricalY(h));
+                    }
+                    if (eraseStrokeAt(x, y) || erased) invalidate();
+                    return true;
+                }
+                if (currentTool == Tool.DRAW && drawing) {
+                    if (currentShape == Shape.FREE) {
+                        // Batched samples keep fast strokes from cutting corners
+                        for (int h = 0; h < e.getHistorySize(); h++) {
+                            extendLiveShape(e.getHistoricalX(h), e.getHistoricalY(h), e.getHistoricalEventTime(h));
+                        }
+                    }
+                    extendLiveShape(x, y, e.getEventTime());
                     if (currentShape == Shape.FREE) {
-                        currentPath.lineTo(x, y);
+                        predictedCount = lowLatencyInk ? predictor.predict(PREDICTION_MS, predicted) : 0;
                     }
-                    lastX = x;
-                    lastY = y;
+                    pendingEventMs = e.getEventTime();
+                    // Hardware layer: the whole view is redrawn anyway, the saving is the cached stroke layer
                     invalidate();
                 }
                 return true;
 
             case MotionEvent.ACTION_UP:
-                if (currentTool == Tool.DRAW && currentPath != null) {
+                if (currentTool == Tool.DRAW && drawing) {
+                    float[] pts;
                     if (currentShape == Shape.FREE) {
-                        currentPath.lineTo(x, y);
-                        strokes.add(new Stroke(paint, currentPath, currentShape, 0, 0, 0, 0));
+                        extendLiveShape(x, y, e.getEventTime());
+                        pts = Arrays.copyOf(livePoints, livePointCount);
                     } else {
-                        strokes.add(new Stroke(paint, currentPath, currentShape, startX, startY, x, y));
+                        pts = new float[]{startX, startY, x, y};
+                    }
+                    long start = annotationDurationUs > 0 ? playheadUs : Long.MIN_VALUE;
+                    long end = annotationDurationUs > 0 ? playheadUs + annotationDurationUs : Long.MAX_VALUE;
+                    commitStroke(new Stroke(nextStrokeId++, currentShape, style, pts, start, end), inkInLayer());
+                    drawing = false;
+                    predictedCount = 0;
+                    invalidate();
+                }
+                return true;
+
+            case MotionEvent.ACTION_CANCEL:
+                if (drawing) {
+                    if (inkInLayer()) {
+                        redrawRegion(liveBounds.left, liveBounds.top, liveBounds.right, liveBounds.bottom);
                     }
-                    currentPath = null;
+                    drawing = false;
+                    predictedCount = 0;
                     invalidate();
                 }
                 return true;
@@ -134,22 +493,20 @@ public class DrawingView extends View {
         return false;
     }
 
-    private void eraseStrokeAt(float x, float y) {
-        for (int i = strokes.size() - 1; i >= 0; i--) {
-            Stroke s = strokes.get(i);
-            RectF bounds = new RectF();
-            if (s.shape == Shape.FREE) {
-                s.path.computeBounds(bounds, true);
-            } else {
-                bounds.set(Math.min(s.sx, s.ex), Math.min(s.sy, s.ey),
-                        Math.max(s.sx, s.ex), Math.max(s.sy, s.ey));
-            }
-            bounds.inset(-30, -30); // fuzziness
-            if (bounds.contains(x, y)) {
-                strokes.remove(i);
-                break;
-            }
+    // Removes the topmost stroke whose drawn geometry is within reach of (x, y)
+    private boolean eraseStrokeAt(float x, float y) {
+        candidates.clear();
+        grid.query(x - ERASE_SLOP, y - ERASE_SLOP, x + ERASE_SLOP, y + ERASE_SLOP, candidates);
+        Stroke hit = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Stroke s = candidates.get(i);
+            if ((hit == null || s.id > hit.id) && s.isActiveAt(playheadUs) && s.hitTest(x, y, ERASE_SLOP)) hit = s;
         }
+        candidates.clear();
+        if (hit == null) return false;
+        removeStroke(hit);
+        history.recordErase(hit);
+        return true;
     }
 
     public void setTool(Tool tool) {
@@ -157,11 +514,18 @@ public class DrawingView extends View {
     }
 
     public void setColor(int color) {
-        this.currentColor = color;
+        setStyle(color, strokeWidth);
     }
 
     public void setStrokeWidth(float width) {
+        setStyle(currentColor, width);
+    }
+
+    /** Changes colour and width together, as one undoable step. */
+    public void setStyle(int color, float width) {
+        this.currentColor = color;
         this.strokeWidth = width;
+        updateStyle();
     }
 
     public void setShape(Shape shape) {
@@ -169,8 +533,36 @@ public class DrawingView extends View {
     }
 
     public void clearAll() {
-        strokes.clear();
+        if (!strokes.isEmpty()) history.recordClear(new ArrayList<>(strokes));
+        resetStrokes();
+        rebuildLayer();
         invalidate();
+        if (strokesChangedListener != null) strokesChangedListener.onStrokesCleared();
+    }
+
+    public boolean canUndo() {
+        return !drawing && history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return !drawing && history.canRedo();
+    }
+
+    public boolean undo() {
+        if (drawing || !history.undo(historyTarget)) return false;
+        invalidate();
+        return true;
+    }
+
+    public boolean redo() {
+        if (drawing || !history.redo(historyTarget)) return false;
+        invalidate();
+        return true;
+    }
+
+    /** Caps the memory the undo history may keep alive. */
+    void setHistoryBudgetBytes(long bytes) {
+        history.setBudgetBytes(bytes);
     }
 
     public void setDrawingEnabled(boolean enabled) {
@@ -0,0 +1,169 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.List;
+
+/**
+ * Undo history as a log of operations over immutable {@link Stroke}s, kept in a ring. Entries
+ * hold references to strokes rather than copies, so a CLEAR costs one pointer per stroke it
+ * removed. Undo and redo move a cursor and apply one entry to a {@link Target}; recording
+ * after an undo drops the redo tail. The oldest entries are evicted once the approximate
+ * retained size passes the byte budget or the ring is full.
+ */
+final class EditLog {
+
+    /** Receives undone and redone operations; none of them should be recorded back. */
+    interface Target {
+        void addStroke(Stroke s);
+        void eraseStroke(Stroke s);
+        void clearStrokes();
+        /** Puts back every stroke a CLEAR removed. */
+        void restoreStrokes(List<Stroke> strokes);
+        void setStyle(StrokeStyle style);
+    }
+
+    // Stroke operations share the journal's record types
+    static final byte ADD = AnnotationCodec.ADD, ERASE = AnnotationCodec.ERASE, CLEAR = AnnotationCodec.CLEAR;
+    static final byte STYLE = 4;
+
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+    private static final int ENTRY_BYTES = 32;
+
+    private final byte[] types;
+    private final Object[] before, after;
+    private final int[] sizes;
+    private long budgetBytes;
+    private int head, count, cursor;
+    private long bytes;
+
+    EditLog(long budgetBytes) {
+        this(budgetBytes, DEFAULT_MAX_ENTRIES);
+    }
+
+    EditLog(long budgetBytes, int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException();
+        this.budgetBytes = budgetBytes;
+        types = new byte[maxEntries];
+        before = new Object[maxEntries];
+        after = new Object[maxEntries];
+        sizes = new int[maxEntries];
+    }
+
+    void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        trim();
+    }
+
+    void recordAdd(Stroke s) {
+        push(ADD, null, s, ENTRY_BYTES + s.sizeInBytes());
+    }
+
+    void recordErase(Stroke s) {
+        push(ERASE, s, null, ENTRY_BYTES + s.sizeInBytes());
+    }
+
+    /** {@code cleared} is kept as is; pass a list nobody will modify. */
+    void recordClear(List<Stroke> cleared) {
+        int size = ENTRY_BYTES + 16 + 4 * cleared.size();
+        for (int i = 0; i < cleared.size(); i++) size += cleared.get(i).sizeInBytes();
+        push(CLEAR, cleared, null, size);
+    }
+
+    void recordStyle(StrokeStyle from, StrokeStyle to) {
+        if (from == to) return;
+        push(STYLE, from, to, ENTRY_BYTES);
+    }
+
+    boolean canUndo() {
+        return cursor > 0;
+    }
+
+    boolean canRedo() {
+        return cursor < count;
+    }
+
+    @SuppressWarnings("unchecked")
+    boolean undo(Target target) {
+        if (cursor == 0) return false;
+        int i = slot(--cursor);
+        switch (types[i]) {
+            case ADD: target.eraseStroke((Stroke) after[i]); break;
+            case ERASE: target.addStroke((Stroke) before[i]); break;
+            case CLEAR: target.restoreStrokes((List<Stroke>) before[i]); break;
+            default: target.setStyle((StrokeStyle) before[i]); break;
+        }
+        return true;
+    }
+
+    boolean redo(Target target) {
+        if (cursor == count) return false;
+        apply(slot(cursor++), target);
+        return true;
+    }
+
+    void clear() {
+        while (count > 0) evictOldest();
+        head = 0;
+        cursor = 0;
+    }
+
+    int size() {
+        return count;
+    }
+
+    long getRetainedBytes() {
+        return bytes;
+    }
+
+    private void apply(int i, Target target) {
+        switch (types[i]) {
+            case ADD: target.addStroke((Stroke) after[i]); break;
+            case ERASE: target.eraseStroke((Stroke) before[i]); break;
+            case CLEAR: target.clearStrokes(); break;
+            default: target.setStyle((StrokeStyle) after[i]); break;
+        }
+    }
+
+    private void push(byte type, Object from, Object to, int size) {
+        // Drop the redo tail, newest first
+        while (count > cursor) dropNewest();
+        if (count == types.length) evictOldest();
+        int i = slot(count++);
+        types[i] = type;
+        before[i] = from;
+        after[i] = to;
+        sizes[i] = size;
+        bytes += size;
+        cursor = count;
+        trim();
+    }
+
+    // Always keeps one entry, even if it alone exceeds the budget. Evicting an entry that
+    // is still redoable would break the chain, so with nothing left to undo the redo tail goes
+    private void trim() {
+        while (bytes > budgetBytes && count > 1) {
+            if (cursor > 0) {
+                evictOldest();
+            } else {
+                dropNewest();
+            }
+        }
+    }
+
+    private void dropNewest() {
+        int i = slot(--count);
+        bytes -= sizes[i];
+        before[i] = after[i] = null;
+    }
+
+    private void evictOldest() {
+        bytes -= sizes[head];
+        before[head] = after[head] = null;
+        head = (head + 1) % types.length;
+        count--;
+        if (cursor > 0) cursor--;
+    }
+
+    private int slot(int k) {
+        return (head + k) % types.length;
+    }
+}
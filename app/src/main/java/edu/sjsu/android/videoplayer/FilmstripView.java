@@ -0,0 +1,60 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.View;
+
+/** Row of thumbnails spread evenly over the clip, drawn from a {@link ThumbnailCache}. */
+public class FilmstripView extends View {
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect src = new Rect();
+    private final Rect dst = new Rect();
+    private ThumbnailCache cache;
+    private long startUs, durationUs;
+
+    public FilmstripView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    void setSource(ThumbnailCache cache, long startUs, long durationUs) {
+        this.cache = cache;
+        this.startUs = startUs;
+        this.durationUs = durationUs;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        canvas.drawColor(Color.BLACK);
+        if (cache == null || durationUs <= 0 || getHeight() == 0) return;
+        int height = getHeight();
+        // Tiles keep a 16:9 shape; thumbnails are centre-cropped into them
+        int tileWidth = Math.max(1, height * 16 / 9);
+        int tiles = (getWidth() + tileWidth - 1) / tileWidth;
+        for (int i = 0; i < tiles; i++) {
+            long timeUs = startUs + (long) ((i + 0.5) * durationUs / tiles);
+            Bitmap thumb = cache.getNearest(timeUs);
+            if (thumb == null || thumb.isRecycled()) continue;
+            dst.set(i * tileWidth, 0, Math.min(getWidth(), (i + 1) * tileWidth), height);
+            centreCrop(thumb, dst.width(), dst.height(), src);
+            canvas.drawBitmap(thumb, src, dst, paint);
+        }
+    }
+
+    static void centreCrop(Bitmap bitmap, int width, int height, Rect out) {
+        int bw = bitmap.getWidth(), bh = bitmap.getHeight();
+        if ((long) bw * height > (long) bh * width) {
+            int w = (int) ((long) bh * width / height);
+            out.set((bw - w) / 2, 0, (bw + w) / 2, bh);
+        } else {
+            int h = (int) ((long) bw * height / width);
+            out.set(0, (bh - h) / 2, bw, (bh + h) / 2);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ring of decoded frames around the playhead, bounded by a byte budget with LRU eviction.
+ * {@link #prefill(int)} decodes the neighbourhood of a frame in the background, behind the
+ * playhead first since backward steps are the ones that cost a whole GOP to decode.
+ */
+final class FrameCache {
+
+    private static final String TAG = "FrameCache";
+    private static final int CHUNK = 8;
+
+    private final LruCache<Integer, Bitmap> frames;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+    }, "FrameCache"));
+    private final AtomicInteger generation = new AtomicInteger();
+    private final int budgetBytes;
+
+    // Bumped by every close; an open whose token is stale drops the decoder it made
+    private int clip;
+    private volatile FrameDecoder decoder;
+    private volatile int frameBytes;
+
+    FrameCache(int budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        frames = new LruCache<Integer, Bitmap>(budgetBytes) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+        };
+    }
+
+    /** Switches to a new clip, opening its decoder on the worker thread. */
+    void open(Context context, Uri uri, FrameIndex index, int maxWidth, int maxHeight) {
+        close();
+        Context app = context.getApplicationContext();
+        int token;
+        synchronized (this) {
+            token = clip;
+        }
+        executor.execute(() -> {
+            FrameDecoder d;
+            try {
+                d = new FrameDecoder(app, uri, index, maxWidth, maxHeight);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Cannot decode frames of " + uri, e);
+                return;
+            }
+            synchronized (this) {
+                if (token == clip) {
+                    decoder = d;
+                    return;
+                }
+            }
+            // Closed or reopened while this decoder was being set up
+            d.release();
+        });
+    }
+
+    /** Drops all frames and releases the current decoder on the worker thread. */
+    void close() {
+        FrameDecoder old = detach();
+        if (old != null) executor.execute(new DecoderRelease(old));
+    }
+
+    private FrameDecoder detach() {
+        FrameDecoder old;
+        synchronized (this) {
+            clip++;
+            old = decoder;
+            decoder = null;
+        }
+        generation.incrementAndGet();
+        frames.evictAll();
+        frameBytes = 0;
+        return old;
+    }
+
+    FrameIndex getIndex() {
+        FrameDecoder d = decoder;
+        return d == null ? null : d.getIndex();
+    }
+
+    Bitmap get(int frame) {
+        return frames.get(frame);
+    }
+
+    int getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /** Cancels any running prefill and starts filling the window around {@code center}. */
+    void prefill(int center) {
+        int gen = generation.incrementAndGet();
+        executor.execute(() -> fillAround(center, gen));
+    }
+
+    private void fillAround(int center, int gen) {
+        FrameDecoder d = decoder;
+        if (d == null) return;
+        FrameIndex index = d.getIndex();
+        try {
+            if (frameBytes == 0) {
+                Bitmap first = d.decode(center);
+                if (first == null) return;
+                frameBytes = first.getAllocationByteCount();
+                frames.put(center, first);
+            }
+            int window = Math.max(2, budgetBytes / frameBytes - 1);
+            int behind = window * 2 / 3;
+            int ahead = window - behind;
+
+            int from = Math.max(0, center - behind);
+            for (int end = center; end > from && gen == generation.get(); end -= CHUNK) {
+                fillRange(d, Math.max(from, end - CHUNK), end);
+            }
+            int to = Math.min(index.size(), center + 1 + ahead);
+            for (int start = center; start < to && gen == generation.get(); start += CHUNK) {
+                fillRange(d, start, Math.min(to, start + CHUNK));
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Prefill around frame " + center + " failed", e);
+        }
+    }
+
+    private void fillRange(FrameDecoder d, int start, int end) {
+        while (start < end && frames.get(start) != null) start++;
+        while (end > start && frames.get(end - 1) != null) end--;
+        if (start >= end || d != decoder) return;
+        List<Bitmap> decoded = d.decodeRange(start, end - start);
+        if (d != decoder) return;
+        for (int i = 0; i < decoded.size(); i++) {
+            Bitmap b = decoded.get(i);
+            if (b != null) frames.put(start + i, b);
+        }
+    }
+
+    /**
+     * Stops the worker without running queued prefills. Decoders still waiting to be released
+     * are released once the task in progress, if any, has returned.
+     */
+    void release() {
+        FrameDecoder old = detach();
+        List<Runnable> dropped = executor.shutdownNow();
+        new Thread(() -> {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Runnable r : dropped) {
+                if (r instanceof DecoderRelease) r.run();
+            }
+            if (old != null) old.release();
+        }, "FrameCacheRelease").start();
+    }
+
+    private static final class DecoderRelease implements Runnable {
+        private final FrameDecoder decoder;
+
+        DecoderRelease(FrameDecoder decoder) {
+            this.decoder = decoder;
+        }
+
+        @Override
+        public void run() {
+            decoder.release();
+        }
+    }
+}
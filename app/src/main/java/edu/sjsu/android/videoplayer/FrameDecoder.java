@@ -0,0 +1,92 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes individual frames of one clip into bitmaps no larger than the target size.
+ * Not thread safe: confine each instance to a single worker thread.
+ */
+final class FrameDecoder {
+
+    // Full-size frames held at once by decodeRange
+    private static final int MAX_BATCH = 8;
+
+    private final MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+    private final FrameIndex index;
+    private final int maxWidth, maxHeight;
+    private final MediaMetadataRetriever.BitmapParams params;
+
+    FrameDecoder(Context context, Uri uri, FrameIndex index, int maxWidth, int maxHeight) {
+        retriever.setDataSource(context, uri);
+        this.index = index;
+        this.maxWidth = Math.max(maxWidth, 1);
+        this.maxHeight = Math.max(maxHeight, 1);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            params = new MediaMetadataRetriever.BitmapParams();
+            params.setPreferredConfig(Bitmap.Config.RGB_565);
+        } else {
+            params = null;
+        }
+    }
+
+    FrameIndex getIndex() {
+        return index;
+    }
+
+    Bitmap decode(int frame) {
+        Bitmap bitmap;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            bitmap = retriever.getFrameAtIndex(frame, params);
+        } else {
+            bitmap = retriever.getFrameAtTime(index.timeUs(frame), MediaMetadataRetriever.OPTION_CLOSEST);
+        }
+        return bitmap == null ? null : fit(bitmap);
+    }
+
+    /**
+     * Decodes {@code count} consecutive frames with a forward pass where the platform allows it.
+     * The platform returns frames at source size, so they are fetched in small batches and
+     * scaled down before the next batch is decoded.
+     */
+    List<Bitmap> decodeRange(int first, int count) {
+        List<Bitmap> out = new ArrayList<>(count);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            for (int start = first; start < first + count; start += MAX_BATCH) {
+                int n = Math.min(MAX_BATCH, first + count - start);
+                for (Bitmap b : retriever.getFramesAtIndex(start, n, params)) {
+                    out.add(fit(b));
+                }
+            }
+        } else {
+            for (int i = first; i < first + count; i++) {
+                out.add(decode(i));
+            }
+        }
+        return out;
+    }
+
+    private Bitmap fit(Bitmap bitmap) {
+        float scale = Math.min((float) maxWidth / bitmap.getWidth(), (float) maxHeight / bitmap.getHeight());
+        if (scale >= 1f) return bitmap;
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+        if (scaled != bitmap) bitmap.recycle();
+        return scaled;
+    }
+
+    void release() {
+        try {
+            retriever.release();
+        } catch (Exception ignored) {
+            // release() declares IOException on newer platforms
+        }
+    }
+}
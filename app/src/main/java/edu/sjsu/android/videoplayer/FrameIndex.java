@@ -0,0 +1,107 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.Arrays;
+
+/**
+ * Sorted presentation timestamps of every video frame in a clip, with keyframe flags.
+ * Lookups are binary searches over primitive arrays, so stepping works for VFR and
+ * high frame rate footage alike.
+ */
+final class FrameIndex {
+
+    // A seek to a whole millisecond lands up to 999us before the frame it targets.
+    private static final long MS_TOLERANCE_US = 999;
+
+    private final long[] timesUs;
+    private final long[] keyFrameBits;
+
+    private FrameIndex(long[] timesUs, long[] keyFrameBits) {
+        this.timesUs = timesUs;
+        this.keyFrameBits = keyFrameBits;
+    }
+
+    int size() {
+        return timesUs.length;
+    }
+
+    long timeUs(int frame) {
+        return timesUs[frame];
+    }
+
+    /** Position to hand to {@code seekTo} so the player renders exactly {@code frame}. */
+    long positionMs(int frame) {
+        return timesUs[frame] / 1000;
+    }
+
+    boolean isKeyFrame(int frame) {
+        return (keyFrameBits[frame >>> 6] & (1L << frame)) != 0;
+    }
+
+    /** Frame on screen at the given playback position, or -1 if it is before the first frame. */
+    int frameAt(long positionUs) {
+        int i = Arrays.binarySearch(timesUs, positionUs);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    int frameAtMs(long positionMs) {
+        return Math.max(frameAt(positionMs * 1000 + MS_TOLERANCE_US), 0);
+    }
+
+    int step(int frame, int direction) {
+        return Math.max(0, Math.min(size() - 1, frame + direction));
+    }
+
+    int keyFrameAtOrBefore(int frame) {
+        for (int i = Math.min(frame, size() - 1); i > 0; i--) {
+            if (isKeyFrame(i)) return i;
+        }
+        return 0;
+    }
+
+    int nextKeyFrame(int frame) {
+        for (int i = frame + 1; i < size(); i++) {
+            if (isKeyFrame(i)) return i;
+        }
+        return size();
+    }
+
+    /**
+     * Start of the run of frames ending just before {@code end} that one forward decode covers:
+     * back to its keyframe, or only {@code maxFrames} frames when the GOP is longer than that.
+     */
+    int segmentStart(int end, int maxFrames) {
+        return Math.max(keyFrameAtOrBefore(end - 1), end - Math.max(1, maxFrames));
+    }
+
+    long sizeInBytes() {
+        return 8L * (timesUs.length + keyFrameBits.length) + 32;
+    }
+
+    /** Collects samples in decode order; {@link #build()} sorts them into presentation order. */
+    static final class Builder {
+        private long[] times = new long[1024];
+        private long[] keyTimes = new long[64];
+        private int count, keyCount;
+
+        Builder add(long timeUs, boolean keyFrame) {
+            if (count == times.length) times = Arrays.copyOf(times, count * 2);
+            times[count++] = timeUs;
+            if (keyFrame) {
+                if (keyCount == keyTimes.length) keyTimes = Arrays.copyOf(keyTimes, keyCount * 2);
+                keyTimes[keyCount++] = timeUs;
+            }
+            return this;
+        }
+
+        FrameIndex build() {
+            long[] sorted = Arrays.copyOf(times, count);
+            Arrays.sort(sorted);
+            long[] bits = new long[(count + 63) >>> 6];
+            for (int k = 0; k < keyCount; k++) {
+                int i = Arrays.binarySearch(sorted, keyTimes[k]);
+                if (i >= 0) bits[i >>> 6] |= 1L << i;
+            }
+            return new FrameIndex(sorted, bits);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Builds {@link FrameIndex}es off the main thread and keeps them per URI for the process lifetime. */
+final class FrameIndexLoader {
+
+    interface Callback {
+        void onFrameIndexReady(Uri uri, FrameIndex index);
+    }
+
+    private static final String TAG = "FrameIndexLoader";
+    // A 240 fps clip takes about 8 bytes per frame, so a long one alone can need several MB
+    private static final int CACHE_BYTES = (int) Math.min(Integer.MAX_VALUE,
+            Math.max(4L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 32));
+
+    private static final LruCache<String, FrameIndex> cache = new LruCache<String, FrameIndex>(CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, FrameIndex value) {
+            return (int) value.sizeInBytes();
+        }
+    };
+
+    // The index last built, kept even if it is too large for the cache
+    private static volatile Entry current;
+
+    private final Context context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    FrameIndexLoader(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    FrameIndex getCached(Uri uri) {
+        String key = uri.toString();
+        Entry last = current;
+        if (last != null && last.key.equals(key)) return last.index;
+        return cache.get(key);
+    }
+
+    void load(Uri uri, Callback callback) {
+        FrameIndex cached = getCached(uri);
+        if (cached != null) {
+            callback.onFrameIndexReady(uri, cached);
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                FrameIndex index = build(context, uri);
+                cache.put(uri.toString(), index);
+                current = new Entry(uri.toString(), index);
+                mainHandler.post(() -> callback.onFrameIndexReady(uri, index));
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Could not index frames of " + uri, e);
+            }
+        });
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    static FrameIndex build(Context context, Uri uri) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(context, uri, null);
+            int track = findVideoTrack(extractor);
+            if (track < 0) throw new IOException("No video track in " + uri);
+            extractor.selectTrack(track);
+
+            FrameIndex.Builder builder = new FrameIndex.Builder();
+            long timeUs;
+            while ((timeUs = extractor.getSampleTime()) >= 0) {
+                builder.add(timeUs, (extractor.getSampleFlags() & MediaExtractor.SAMPLE_FLAG_SYNC) != 0);
+                extractor.advance();
+            }
+            return builder.build();
+        } finally {
+            extractor.release();
+        }
+    }
+
+    static int findVideoTrack(MediaExtractor extractor) {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            String mime = extractor.getTrackFormat(i).getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("video/")) return i;
+        }
+        return -1;
+    }
+
+    private static final class Entry {
+        final String key;
+        final FrameIndex index;
+
+        Entry(String key, FrameIndex index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Synthesises in-between frames from two ARGB frames of equal size. Motion is estimated once
+ * per pair: blocks of the first frame are matched in the second, then every block of the
+ * in-between frame picks whichever nearby vector best explains it from both sides. Any fraction
+ * between the two frames is produced by sampling both along that vector and blending; blocks
+ * without a convincing match fall back to a plain cross-fade.
+ * <p>
+ * Works on plain {@code int[]} pixels and reuses its buffers, so one instance per frame size.
+ * Not thread safe; the work of a single call is split across the given pool.
+ */
+final class FrameInterpolator {
+
+    static final int DEFAULT_BLOCK = 16;
+    static final int DEFAULT_RADIUS = 16;
+    // Mean absolute luma difference above which a block is treated as unmatched
+    private static final int MAX_MEAN_SAD = 24;
+    // Forward vectors considered for an in-between block, in blocks each way
+    private static final int CANDIDATE_REACH = 2;
+
+    private final int width, height, block, radius;
+    private final int blocksX, blocksY;
+    private final ForkJoinPool pool;
+    private final int[] lumaA, lumaB;
+    // Motion of each block of the first frame, and of each block of the in-between frame
+    private final int[] forwardX, forwardY;
+    private final int[] motionX, motionY;
+
+    FrameInterpolator(int width, int height, ForkJoinPool pool) {
+        this(width, height, DEFAULT_BLOCK, DEFAULT_RADIUS, pool);
+    }
+
+    FrameInterpolator(int width, int height, int block, int radius, ForkJoinPool pool) {
+        if (width <= 0 || height <= 0 || block <= 0 || radius < 0) throw new IllegalArgumentException();
+        this.width = width;
+        this.height = height;
+        this.block = block;
+        this.radius = radius;
+        this.pool = pool;
+        blocksX = (width + block - 1) / block;
+        blocksY = (height + block - 1) / block;
+        lumaA = new int[width * height];
+        lumaB = new int[width * height];
+        forwardX = new int[blocksX * blocksY];
+        forwardY = new int[blocksX * blocksY];
+        motionX = new int[blocksX * blocksY];
+        motionY = new int[blocksX * blocksY];
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /** Estimates motion from {@code a} to {@code b}; must precede {@link #interpolate} for that pair. */
+    void estimate(int[] a, int[] b) {
+        checkSize(a);
+        checkSize(b);
+        ParallelRows.forEach(pool, height, 32, (from, to) -> {
+            toLuma(a, lumaA, from * width, to * width);
+            toLuma(b, lumaB, from * width, to * width);
+        });
+        ParallelRows.forEach(pool, blocksY, 1, (from, to) -> {
+            for (int by = from; by < to; by++) {
+                for (int bx = 0; bx < blocksX; bx++) matchForward(bx, by);
+            }
+        });
+        ParallelRows.forEach(pool, blocksY, 1, (from, to) -> {
+            for (int by = from; by < to; by++) {
+                for (int bx = 0; bx < blocksX; bx++) pickMotion(bx, by);
+            }
+        });
+    }
+
+    /** Writes the frame at fraction {@code t} (0 = {@code a}, 1 = {@code b}) into {@code out}. */
+    void interpolate(int[] a, int[] b, float t, int[] out) {
+        checkSize(a);
+        checkSize(b);
+        checkSize(out);
+        float f = Math.max(0f, Math.min(1f, t));
+        int wb = Math.round(f * 256);
+        ParallelRows.forEach(pool, height, block, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int rowBlock = (y / block) * blocksX;
+                for (int bx = 0; bx < blocksX; bx++) {
+                    int vx = motionX[rowBlock + bx], vy = motionY[rowBlock + bx];
+                    int ax = Math.round(vx * f), ay = Math.round(vy * f);
+                    int rowA = clamp(y - ay, height) * width, rowB = clamp(y + vy - ay, height) * width;
+                    int x0 = bx * block, x1 = Math.min(x0 + block, width), rowOut = y * width;
+                    for (int x = x0; x < x1; x++) {
+                        out[rowOut + x] = blend(a[rowA + clamp(x - ax, width)], b[rowB + clamp(x + vx - ax, width)], wb);
+                    }
+                }
+            }
+        });
+    }
+
+    // Coarse search on even offsets, then a one pixel refinement around the winner
+    private void matchForward(int bx, int by) {
+        int x0 = bx * block, y0 = by * block;
+        int w = Math.min(block, width - x0), h = Math.min(block, height - y0);
+        int best = sad(x0, y0, w, h, 0, 0, 0, 0, Integer.MAX_VALUE);
+        int bestX = 0, bestY = 0;
+        for (int dy = -radius; dy <= radius && best > 0; dy += 2) {
+            for (int dx = -radius; dx <= radius; dx += 2) {
+                int cost = sad(x0, y0, w, h, 0, 0, dx, dy, best);
+                // Strictly better only, so ties keep the zero vector
+                if (cost < best) {
+                    best = cost;
+                    bestX = dx;
+                    bestY = dy;
+                }
+            }
+        }
+        int cx = bestX, cy = bestY;
+        for (int dy = cy - 1; dy <= cy + 1 && best > 0; dy++) {
+            for (int dx = cx - 1; dx <= cx + 1; dx++) {
+                int cost = sad(x0, y0, w, h, 0, 0, dx, dy, best);
+                if (cost < best) {
+                    best = cost;
+                    bestX = dx;
+                    bestY = dy;
+                }
+            }
+        }
+        forwardX[by * blocksX + bx] = bestX;
+        forwardY[by * blocksX + bx] = bestY;
+    }
+
+    // Scores nearby forward vectors as straight paths through this block of the midpoint frame
+    private void pickMotion(int bx, int by) {
+        int x0 = bx * block, y0 = by * block;
+        int w = Math.min(block, width - x0), h = Math.min(block, height - y0);
+        int best = sad(x0, y0, w, h, 0, 0, 0, 0, Integer.MAX_VALUE);
+        int bestX = 0, bestY = 0;
+        for (int ny = Math.max(0, by - CANDIDATE_REACH); ny <= Math.min(blocksY - 1, by + CANDIDATE_REACH) && best > 0; ny++) {
+            for (int nx = Math.max(0, bx - CANDIDATE_REACH); nx <= Math.min(blocksX - 1, bx + CANDIDATE_REACH); nx++) {
+                int vx = forwardX[ny * blocksX + nx], vy = forwardY[ny * blocksX + nx];
+                if ((vx == 0 && vy == 0) || (vx == bestX && vy == bestY)) continue;
+                int ax = Math.round(vx * 0.5f), ay = Math.round(vy * 0.5f);
+                int cost = sad(x0, y0, w, h, -ax, -ay, vx - ax, vy - ay, best);
+                if (cost < best) {
+                    best = cost;
+                    bestX = vx;
+                    bestY = vy;
+                }
+            }
+        }
+        if (best > MAX_MEAN_SAD * w * h) {
+            bestX = 0;
+            bestY = 0;
+        }
+        motionX[by * blocksX + bx] = bestX;
+        motionY[by * blocksX + bx] = bestY;
+    }
+
+    // Sum of |A(p + da) - B(p + db)| over the block, abandoned once it reaches limit
+    private int sad(int x0, int y0, int w, int h, int dax, int day, int dbx, int dby, int limit) {
+        boolean inside = x0 + Math.min(dax, dbx) >= 0 && x0 + w + Math.max(dax, dbx) <= width
+                && y0 + Math.min(day, dby) >= 0 && y0 + h + Math.max(day, dby) <= height;
+        int sum = 0;
+        for (int y = y0; y < y0 + h; y++) {
+            if (inside) {
+                int ia = (y + day) * width + x0 + dax;
+                int ib = (y + dby) * width + x0 + dbx;
+                for (int k = 0; k < w; k++) sum += Math.abs(lumaA[ia + k] - lumaB[ib + k]);
+            } else {
+                int rowA = clamp(y + day, height) * width, rowB = clamp(y + dby, height) * width;
+                for (int x = x0; x < x0 + w; x++) {
+                    sum += Math.abs(lumaA[rowA + clamp(x + dax, width)] - lumaB[rowB + clamp(x + dbx, width)]);
+                }
+            }
+            if (sum >= limit) return sum;
+        }
+        return sum;
+    }
+
+    private static void toLuma(int[] argb, int[] luma, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int c = argb[i];
+            luma[i] = (((c >> 16) & 0xff) * 77 + ((c >> 8) & 0xff) * 150 + (c & 0xff) * 29) >> 8;
+        }
+    }
+
+    // Per-channel mix with weight wb/256 on q
+    private static int blend(int p, int q, int wb) {
+        int wa = 256 - wb;
+        int ag = ((p >>> 8) & 0x00ff00ff) * wa + ((q >>> 8) & 0x00ff00ff) * wb;
+        int rb = (p & 0x00ff00ff) * wa + (q & 0x00ff00ff) * wb;
+        return (ag & 0xff00ff00) | ((rb >>> 8) & 0x00ff00ff);
+    }
+
+    private static int clamp(int v, int size) {
+        return v < 0 ? 0 : (v >= size ? size - 1 : v);
+    }
+
+    private void checkSize(int[] pixels) {
+        if (pixels.length < width * height) throw new IllegalArgumentException("Buffer smaller than frame");
+    }
+}
@@ -0,0 +1,111 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket histogram safe to record into from any thread without locking. Bucket
+ * {@code i} counts values {@code <= bounds[i]}; one extra bucket takes everything larger.
+ */
+final class Histogram {
+
+    private final String name;
+    private final String unit;
+    private final long[] bounds;
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    Histogram(String name, String unit, long... bounds) {
+        this.name = name;
+        this.unit = unit;
+        this.bounds = bounds;
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /** Power-of-two buckets from 1 up to the first one covering {@code limit}. */
+    static Histogram exponential(String name, String unit, long limit) {
+        int n = 0;
+        long[] bounds = new long[63];
+        for (long b = 1; n < bounds.length; b *= 2) {
+            bounds[n++] = b;
+            if (b >= limit) break;
+        }
+        long[] trimmed = new long[n];
+        System.arraycopy(bounds, 0, trimmed, 0, n);
+        return new Histogram(name, unit, trimmed);
+    }
+
+    void record(long value) {
+        int lo = 0, hi = bounds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bounds[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        counts.incrementAndGet(lo);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            // retry
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getCount() {
+        return count.get();
+    }
+
+    long getMax() {
+        return count.get() == 0 ? 0 : max.get();
+    }
+
+    double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /** Upper bound of the bucket holding the given quantile (0..1); the max for the overflow bucket. */
+    long percentile(double quantile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(quantile * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return i < bounds.length ? Math.min(bounds[i], getMax()) : getMax();
+        }
+        return getMax();
+    }
+
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(Long.MIN_VALUE);
+    }
+
+    void appendJson(StringBuilder out) {
+        out.append("{\"name\":\"").append(name)
+                .append("\",\"unit\":\"").append(unit)
+                .append("\",\"count\":").append(getCount())
+                .append(",\"mean\":").append(String.format(Locale.US, "%.3f", getMean()))
+                .append(",\"p50\":").append(percentile(0.5))
+                .append(",\"p95\":").append(percentile(0.95))
+                .append(",\"p99\":").append(percentile(0.99))
+                .append(",\"max\":").append(getMax())
+                .append(",\"buckets\":[");
+        for (int i = 0; i < counts.length(); i++) {
+            if (i > 0) out.append(',');
+            out.append("{\"le\":").append(i < bounds.length ? String.valueOf(bounds[i]) : "null")
+                    .append(",\"count\":").append(counts.get(i)).append('}');
+        }
+        out.append("]}");
+    }
+}
@@ -0,0 +1,74 @@
+package edu.sjsu.android.videoplayer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes every frame as a binary PPM ({@code frame_00000.ppm}, ...) plus a
+ * {@code timestamps.txt} of output times, one per line. Lossless and dependency free, so
+ * the pipeline can be checked frame by frame on the JVM or dumped for inspection.
+ */
+final class ImageSequenceSink implements RenderPipeline.FrameSink {
+
+    static final String TIMESTAMPS = "timestamps.txt";
+
+    private final File dir;
+    private int width, height, count;
+    private byte[] row;
+    private PrintWriter timestamps;
+
+    ImageSequenceSink(File dir) {
+        this.dir = dir;
+    }
+
+    static File frameFile(File dir, int frame) {
+        return new File(dir, String.format(Locale.US, "frame_%05d.ppm", frame));
+    }
+
+    @Override
+    public void start(int width, int height) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        this.width = width;
+        this.height = height;
+        row = new byte[width * 3];
+        timestamps = new PrintWriter(new File(dir, TIMESTAMPS), "UTF-8");
+    }
+
+    @Override
+    public void write(RenderPipeline.Frame frame) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(frameFile(dir, count)))) {
+            out.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+            int[] px = frame.pixels;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0, i = y * width, j = 0; x < width; x++, i++) {
+                    int c = px[i];
+                    row[j++] = (byte) (c >> 16);
+                    row[j++] = (byte) (c >> 8);
+                    row[j++] = (byte) c;
+                }
+                out.write(row);
+            }
+        }
+        timestamps.println(frame.outputUs);
+        count++;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        timestamps.close();
+        if (timestamps.checkError()) throw new IOException("Cannot write " + TIMESTAMPS);
+    }
+
+    @Override
+    public void abort() {
+        if (timestamps != null) timestamps.close();
+        for (int i = 0; i < count; i++) frameFile(dir, i).delete();
+        new File(dir, TIMESTAMPS).delete();
+    }
+}
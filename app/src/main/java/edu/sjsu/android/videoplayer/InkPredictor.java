@@ -0,0 +1,79 @@
+package edu.sjsu.android.videoplayer;
+
+/**
+ * Guesses where the pen will be a few milliseconds ahead so live ink can reach the finger
+ * before the next touch sample does. Velocity is a least-squares fit over the samples of
+ * the last {@link #WINDOW_MS}; the prediction is capped in length and withheld when the pen
+ * is nearly still. Samples go into a fixed ring, so nothing is allocated per event.
+ */
+final class InkPredictor {
+
+    static final int MAX_POINTS = 4;
+    static final long WINDOW_MS = 40;
+    private static final int HISTORY = 16;
+    // Slower than this (px/ms) the pen is treated as resting
+    private static final float MIN_SPEED = 0.05f;
+
+    private final float[] xs = new float[HISTORY], ys = new float[HISTORY];
+    private final long[] ts = new long[HISTORY];
+    private final float maxDistance;
+    private int head, count;
+
+    InkPredictor(float maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    void reset() {
+        count = 0;
+    }
+
+    void add(float x, float y, long timeMs) {
+        head = (head + 1) % HISTORY;
+        xs[head] = x;
+        ys[head] = y;
+        ts[head] = timeMs;
+        if (count < HISTORY) count++;
+    }
+
+    /**
+     * Writes up to {@link #MAX_POINTS} points, evenly spaced out to {@code horizonMs} past
+     * the newest sample, into {@code out} as {@code x, y} pairs and returns how many.
+     */
+    int predict(long horizonMs, float[] out) {
+        if (count < 3 || horizonMs <= 0) return 0;
+        long newest = ts[head];
+        // Means over the window, time taken relative to the newest sample
+        int n = 0;
+        double st = 0, sx = 0, sy = 0;
+        for (int k = 0, i = head; k < count; k++, i = (i + HISTORY - 1) % HISTORY) {
+            long dt = ts[i] - newest;
+            if (dt < -WINDOW_MS) break;
+            st += dt;
+            sx += xs[i];
+            sy += ys[i];
+            n++;
+        }
+        if (n < 3) return 0;
+        double mt = st / n, mx = sx / n, my = sy / n;
+        double stt = 0, stx = 0, sty = 0;
+        for (int k = 0, i = head; k < n; k++, i = (i + HISTORY - 1) % HISTORY) {
+            double dt = ts[i] - newest - mt;
+            stt += dt * dt;
+            stx += dt * (xs[i] - mx);
+            sty += dt * (ys[i] - my);
+        }
+        if (stt == 0) return 0;
+        double vx = stx / stt, vy = sty / stt;
+        double speed = Math.hypot(vx, vy);
+        if (speed < MIN_SPEED) return 0;
+        double reach = Math.min(speed * horizonMs, maxDistance);
+        double ux = vx / speed, uy = vy / speed;
+        int points = Math.min(MAX_POINTS, out.length / 2);
+        for (int p = 0; p < points; p++) {
+            double d = reach * (p + 1) / points;
+            out[2 * p] = (float) (xs[head] + ux * d);
+            out[2 * p + 1] = (float) (ys[head] + uy * d);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,154 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Half-open time intervals {@code [start, end)} answering "which items are live at t" in
+ * O(log n + k). Items are kept sorted by start with a max-end tree on top; the sorted
+ * endpoints also give the window around t in which the answer cannot change, so callers
+ * can skip lookups entirely while the playhead stays inside it. Edits mark the index
+ * dirty and it is rebuilt on the next query; the edits themselves are O(1). Items must be
+ * distinct. Not thread safe.
+ */
+final class IntervalIndex<T> {
+
+    private final List<T> items = new ArrayList<>();
+    // Slot of each item in items, so removal swaps with the last instead of searching
+    private final Map<T, Integer> slots = new HashMap<>();
+    private long[] starts = new long[16], ends = new long[16];
+
+    private boolean dirty = true;
+    private Object[] sorted = new Object[0];
+    private long[] sortedStarts = new long[0], sortedEnds = new long[0];
+    private long[] maxEnd = new long[0];
+    private long[] endpoints = new long[0];
+    private int endpointCount;
+
+    int size() {
+        return items.size();
+    }
+
+    void add(T item, long start, long end) {
+        int n = items.size();
+        if (n == starts.length) {
+            starts = Arrays.copyOf(starts, n * 2);
+            ends = Arrays.copyOf(ends, n * 2);
+        }
+        items.add(item);
+        slots.put(item, n);
+        starts[n] = start;
+        ends[n] = end;
+        dirty = true;
+    }
+
+    boolean remove(T item) {
+        Integer slot = slots.remove(item);
+        if (slot == null) return false;
+        int i = slot;
+        int last = items.size() - 1;
+        if (i != last) {
+            T moved = items.get(last);
+            items.set(i, moved);
+            slots.put(moved, i);
+        }
+        starts[i] = starts[last];
+        ends[i] = ends[last];
+        items.remove(last);
+        dirty = true;
+        return true;
+    }
+
+    void clear() {
+        items.clear();
+        slots.clear();
+        dirty = true;
+    }
+
+    /** Appends every item with {@code start <= t < end} to {@code out}, in start order. */
+    @SuppressWarnings("unchecked")
+    void query(long t, List<T> out) {
+        rebuildIfDirty();
+        int n = sorted.length;
+        if (n == 0) return;
+        int limit = upperBound(sortedStarts, n, t);
+        if (limit > 0) collect(1, 0, n, limit, t, out);
+    }
+
+    /** Latest interval endpoint at or before t; the live set is constant on [windowStart, windowEnd). */
+    long windowStart(long t) {
+        rebuildIfDirty();
+        int i = upperBound(endpoints, endpointCount, t) - 1;
+        return i >= 0 ? endpoints[i] : Long.MIN_VALUE;
+    }
+
+    long windowEnd(long t) {
+        rebuildIfDirty();
+        int i = upperBound(endpoints, endpointCount, t);
+        return i < endpointCount ? endpoints[i] : Long.MAX_VALUE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collect(int node, int lo, int hi, int limit, long t, List<T> out) {
+        if (lo >= limit || maxEnd[node] <= t) return;
+        if (hi - lo == 1) {
+            out.add((T) sorted[lo]);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        collect(node * 2, lo, mid, limit, t, out);
+        collect(node * 2 + 1, mid, hi, limit, t, out);
+    }
+
+    private void rebuildIfDirty() {
+        if (!dirty) return;
+        dirty = false;
+        int n = items.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+
+        sorted = new Object[n];
+        sortedStarts = new long[n];
+        sortedEnds = new long[n];
+        endpoints = new long[2 * n];
+        for (int i = 0; i < n; i++) {
+            int k = order[i];
+            sorted[i] = items.get(k);
+            sortedStarts[i] = starts[k];
+            sortedEnds[i] = ends[k];
+            endpoints[2 * i] = starts[k];
+            endpoints[2 * i + 1] = ends[k];
+        }
+        Arrays.sort(endpoints);
+        endpointCount = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            if (endpointCount == 0 || endpoints[endpointCount - 1] != endpoints[i]) {
+                endpoints[endpointCount++] = endpoints[i];
+            }
+        }
+
+        maxEnd = new long[Math.max(1, 4 * n)];
+        if (n > 0) buildMaxEnd(1, 0, n);
+    }
+
+    private long buildMaxEnd(int node, int lo, int hi) {
+        if (hi - lo == 1) return maxEnd[node] = sortedEnds[lo];
+        int mid = (lo + hi) >>> 1;
+        return maxEnd[node] = Math.max(buildMaxEnd(node * 2, lo, mid), buildMaxEnd(node * 2 + 1, mid, hi));
+    }
+
+    // Number of leading values <= key
+    private static int upperBound(long[] values, int count, long key) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
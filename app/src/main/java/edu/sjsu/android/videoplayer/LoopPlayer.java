@@ -0,0 +1,213 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the decoded frames of an A/B loop pinned in memory and plays them round and round on
+ * an {@link ImageView}, so every restart is instant. Pinning gives up when the loop does not
+ * fit the byte budget; callers then loop the player instead. Control methods are main thread only.
+ */
+final class LoopPlayer implements Choreographer.FrameCallback {
+
+    interface Listener {
+        void onPinned(boolean pinned);
+
+        void onFramePresented(long timeUs);
+    }
+
+    private static final String TAG = "LoopPlayer";
+    private static final int PROBE_FRAMES = 4;
+    private static final int DECODE_CHUNK = 8;
+
+    private final ImageView target;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+    }, "LoopPlayer"));
+    private final int budgetBytes;
+    private Listener listener;
+    private int maxWidth = 1, maxHeight = 1;
+
+    private volatile int generation;
+    private FrameIndex index;
+    private int first;
+    private List<Bitmap> frames;
+    private long loopStartUs, loopLengthUs;
+
+    private boolean playing;
+    private float speed = 1f;
+    private int shownFrame = -1;
+    private long anchorNs, anchorUs;
+
+    LoopPlayer(ImageView target, int budgetBytes) {
+        this.target = target;
+        this.budgetBytes = budgetBytes;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void setMaxFrameSize(int maxWidth, int maxHeight) {
+        this.maxWidth = Math.max(1, maxWidth);
+        this.maxHeight = Math.max(1, maxHeight);
+    }
+
+    /** Decodes frames {@code first..last} in the background and reports whether they fit. */
+    void pin(Context context, Uri uri, FrameIndex index, int first, int last) {
+        unpin();
+        int gen = ++generation;
+        Context app = context.getApplicationContext();
+        int count = last - first + 1;
+        int w = maxWidth, h = maxHeight;
+        worker.execute(() -> {
+            List<Bitmap> decoded = decode(app, uri, index, first, count, w, h, gen);
+            main.post(() -> {
+                if (gen != generation) {
+                    recycle(decoded);
+                    return;
+                }
+                if (decoded != null) {
+                    this.index = index;
+                    this.first = first;
+                    this.frames = decoded;
+                    loopStartUs = index.timeUs(first);
+                    long endUs = first + count < index.size() ? index.timeUs(first + count)
+                            : index.timeUs(first + count - 1) + (index.timeUs(first + count - 1) - loopStartUs) / Math.max(1, count - 1);
+                    loopLengthUs = Math.max(1, endUs - loopStartUs);
+                }
+                if (listener != null) listener.onPinned(decoded != null);
+            });
+        });
+    }
+
+    // Runs on the worker; null if the loop would not fit or decoding failed
+    private List<Bitmap> decode(Context context, Uri uri, FrameIndex index, int first, int count,
+                                int w, int h, int gen) {
+        FrameDecoder decoder = null;
+        List<Bitmap> out = new ArrayList<>(count);
+        try {
+            decoder = new FrameDecoder(context, uri, index, w, h);
+            out.addAll(decoder.decodeRange(first, Math.min(PROBE_FRAMES, count)));
+            Bitmap probe = out.isEmpty() ? null : out.get(0);
+            if (probe == null || (long) probe.getAllocationByteCount() * count > budgetBytes) {
+                recycle(out);
+                return null;
+            }
+            // In chunks, so a newer pin stops this one early
+            while (out.size() < count && gen == generation) {
+                List<Bitmap> chunk = decoder.decodeRange(first + out.size(), Math.min(DECODE_CHUNK, count - out.size()));
+                if (chunk.isEmpty()) break;
+                out.addAll(chunk);
+            }
+            return out;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Cannot pin loop of " + uri, e);
+            recycle(out);
+            return null;
+        } finally {
+            if (decoder != null) decoder.release();
+        }
+    }
+
+    void unpin() {
+        pause();
+        generation++;
+        recycle(frames);
+        frames = null;
+    }
+
+    boolean isPinned() {
+        return frames != null;
+    }
+
+    boolean isPlaying() {
+        return playing;
+    }
+
+    /** First frame of the pinned loop, or -1 if nothing is pinned. */
+    int getFirstFrame() {
+        return frames == null ? -1 : first;
+    }
+
+    boolean contains(int frame) {
+        return frames != null && frame >= first && frame < first + frames.size();
+    }
+
+    void setSpeed(float speed) {
+        if (playing && anchorNs != 0) {
+            long now = System.nanoTime();
+            anchorUs = mediaTimeUs(now);
+            anchorNs = now;
+        }
+        this.speed = speed;
+    }
+
+    /** Plays the pinned loop from {@code frame}, or from its start if that is outside it. */
+    void play(int frame) {
+        if (frames == null) return;
+        playing = true;
+        anchorNs = 0;
+        anchorUs = index.timeUs(contains(frame) ? frame : first);
+        shownFrame = -1;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /** Stops and returns the frame last shown, or -1 if none was. */
+    int pause() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (!playing) return -1;
+        playing = false;
+        return shownFrame;
+    }
+
+    void release() {
+        unpin();
+        worker.shutdownNow();
+    }
+
+    // Wraps back to the loop start instead of running past its end
+    private long mediaTimeUs(long nowNs) {
+        long elapsed = (long) ((nowNs - anchorNs) / 1000 * (double) speed);
+        return loopStartUs + Math.floorMod(anchorUs - loopStartUs + elapsed, loopLengthUs);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!playing) return;
+        if (anchorNs == 0) anchorNs = frameTimeNanos;
+        int frame = Math.max(first, Math.min(first + frames.size() - 1, index.frameAt(mediaTimeUs(frameTimeNanos))));
+        if (frame != shownFrame) {
+            Bitmap bitmap = frames.get(frame - first);
+            if (bitmap != null) {
+                target.setImageBitmap(bitmap);
+                target.setVisibility(View.VISIBLE);
+            }
+            shownFrame = frame;
+            if (listener != null) listener.onFramePresented(index.timeUs(frame));
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private static void recycle(List<Bitmap> bitmaps) {
+        if (bitmaps == null) return;
+        for (Bitmap b : bitmaps) {
+            if (b != null) b.recycle();
+        }
+    }
+}
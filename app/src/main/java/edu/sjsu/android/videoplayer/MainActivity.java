@@ -1,7 +1,9 @@
 package edu.sjsu.android.videoplayer;
 
+import android.content.ComponentCallbacks2;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.net.Uri;
 import android.os.Build;
@@ -23,42 +25,108 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.exoplayer2.*;
 import com.google.android.exoplayer2.ui.PlayerView;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final int REQUEST_PICK_VIDEO = 101;
+    // Detents the speed bar snaps to when released close by
     private static final float[] SPEEDS = {0.25f, 0.5f, 0.75f, 1.0f, 1.25f, 1.5f, 1.75f, 2.0f};
+    private static final float MIN_SPEED = 0.05f;
+    private static final float SPEED_STEP = 0.01f;
+    private static final float SPEED_SNAP = 0.02f;
     private static final long FRAME_SEEK_INTERVAL_MS = 100;
+    private static final long MIN_HOLD_STEP_MS = 33;
+    private static final long STATS_REFRESH_MS = 500;
+    // Pinned loop frames are decoded no larger than this on either side
+    private static final int LOOP_MAX_EDGE = 960;
+    private static final int THUMBNAIL_MEMORY_BYTES = 8 * 1024 * 1024;
+    // Range used for a strobe when no loop is set, either side of the playhead
+    private static final long STROBE_DEFAULT_HALF_RANGE_MS = 1000;
+    private static final long MARKER_SNAP_MS = 250;
+    // How long a paused player and its decoders survive in the background
+    private static final long BACKGROUND_RELEASE_MS = 60_000;
     private static final String TAG = "VideoPlayer";
 
     private PlayerView playerView;
     private ExoPlayer player;
+    private SeekScheduler seekScheduler;
 
     private ImageButton playPauseButton, nextFrameButton, prevFrameButton, selectVideoButton, editMenuButton;
     private SeekBar speedSeekBar;
     private TextView speedLabel, modeText;
     private View controlOverlay, topBar;
     private DrawingView drawingView;
+    private ImageView frameOverlay;
+    private ZoomLayout zoomLayout;
+    private ImageView scrubPreview;
+    private FilmstripView filmstrip;
 
-    private SeekBar videoSeekBar;
+    private MarkerSeekBar videoSeekBar;
     private TextView currentTimeText, totalDurationText;
+    private TextView statsText;
 
     private boolean controlsVisible = true;
     private float previousSpeed = 1.0f;
     private boolean isInEditMode = false;
     private final Handler frameSeekHandler = new Handler(Looper.getMainLooper());
-    private final Handler seekBarHandler = new Handler(Looper.getMainLooper());
-    private Runnable updateSeekBarRunnable;
+    private final PlayheadTicker playheadTicker = new PlayheadTicker(this::updatePlayhead);
+    private final PlaybackMetrics metrics = new PlaybackMetrics();
+    private final Runnable releasePlayerRunnable = this::releasePlayer;
+    private final Runnable refreshStatsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            statsText.setText(metrics.summary());
+            statsText.postDelayed(this, STATS_REFRESH_MS);
+        }
+    };
+    private boolean isScrubbing = false;
+    private long shownSecond = -1;
     private boolean isSeekingForward = false;
     private boolean isSeekingBackward = false;
 
+    private FrameIndexLoader frameIndexLoader;
+    private FrameIndex frameIndex;
+    private Uri currentVideoUri;
+    // Set when the current video turned out to be missing or unreadable; it is not saved again
+    private boolean videoUnreadable;
+    private FrameCache frameCache;
+    private ThumbnailCache thumbnailCache;
+    private final StrobeGenerator strobeGenerator = new StrobeGenerator();
+    private MotionAnalyzer motionAnalyzer;
+    private final ClipExporter clipExporter = new ClipExporter();
+    private SuperSlowPlayer superSlowPlayer;
+    private ReversePlayer reversePlayer;
+    private LoopPlayer loopPlayer;
+    private PlayerMessage loopMessage;
+    private long loopStartMs = -1, loopEndMs = -1;
+    private AnnotationStore annotationStore;
+    private SessionStore sessionStore;
+    private long resumePositionMs;
+    private int displayedFrame = -1;
+
+    // Latest frame handed to the display by the player, applied to the annotations on the main thread
+    private final AtomicLong renderedFrameUs = new AtomicLong();
+    private final AtomicBoolean annotationUpdatePending = new AtomicBoolean();
+    private final Runnable applyRenderedFrameRunnable = () -> {
+        annotationUpdatePending.set(false);
+        drawingView.setPlayheadUs(renderedFrameUs.get());
+    };
+
     private final Runnable seekNextFrameRunnable = new Runnable() {
         @Override
         public void run() {
             if (isSeekingForward) {
-                stepFrames(1);
-                frameSeekHandler.postDelayed(this, FRAME_SEEK_INTERVAL_MS);
+                holdStep(this, 1);
             }
         }
     };
@@ -67,12 +135,19 @@ public class MainActivity extends AppCompatActivity {
         @Override
         public void run() {
             if (isSeekingBackward) {
-                stepFrames(-1);
-                frameSeekHandler.postDelayed(this, FRAME_SEEK_INTERVAL_MS);
+                holdStep(this, -1);
             }
         }
     };
 
+    // Steps only when the last seek has landed, then waits about as long as seeks are taking
+    private void holdStep(Runnable loop, int direction) {
+        if (seekScheduler == null) return;
+        if (!seekScheduler.isBusy()) stepFrames(direction);
+        long delay = seekScheduler.isBusy() ? seekScheduler.expectedLatencyMs() : MIN_HOLD_STEP_MS;
+        frameSeekHandler.postDelayed(loop, Math.max(delay, MIN_HOLD_STEP_MS));
+    }
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -80,9 +155,75 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
 
         bindViews();
+        frameIndexLoader = new FrameIndexLoader(this);
+        frameCache = new FrameCache(frameCacheBudget());
+        thumbnailCache = new ThumbnailCache(this, THUMBNAIL_MEMORY_BYTES);
+        thumbnailCache.setListener(() -> {
+            filmstrip.invalidate();
+            if (scrubPreview.getVisibility() == View.VISIBLE) showScrubPreview(videoSeekBar.getProgress());
+        });
+        motionAnalyzer = new MotionAnalyzer(this);
+        annotationStore = new AnnotationStore(this);
+        sessionStore = new SessionStore(this);
+        drawingView.setOnStrokesChangedListener(annotationStore);
+        drawingView.setDrawTimeHistogram(metrics.drawUs);
+        drawingView.setInkLatencyHistogram(metrics.inkLatencyMs);
+        drawingView.setHistoryBudgetBytes(undoHistoryBudget());
+        zoomLayout.setOnZoomChangedListener(scale -> updateModeLabel());
+        superSlowPlayer = new SuperSlowPlayer(frameOverlay);
+        superSlowPlayer.setInterpolateTimeHistogram(metrics.interpolateUs);
+        superSlowPlayer.setListener(new SuperSlowPlayer.Listener() {
+            @Override
+            public void onFramePresented(long timeUs) {
+                drawingView.setPlayheadUs(timeUs);
+                showPlayhead(timeUs / 1000);
+            }
+
+            @Override
+            public void onEnded() {
+                stopSuperSlow();
+                playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
+            }
+        });
+        loopPlayer = new LoopPlayer(frameOverlay, loopBufferBudget());
+        loopPlayer.setListener(new LoopPlayer.Listener() {
+            @Override
+            public void onPinned(boolean pinned) {
+                if (!pinned) {
+                    Toast.makeText(MainActivity.this, "Loop too long to keep in memory, looping by seeking",
+                            Toast.LENGTH_SHORT).show();
+                } else if (player != null && player.isPlaying()) {
+                    // Take over from the seek-based loop
+                    startLoop();
+                }
+            }
+
+            @Override
+            public void onFramePresented(long timeUs) {
+                drawingView.setPlayheadUs(timeUs);
+                showPlayhead(timeUs / 1000);
+            }
+        });
+        reversePlayer = new ReversePlayer(frameOverlay, reverseBufferBudget());
+        reversePlayer.setListener(new ReversePlayer.Listener() {
+            @Override
+            public void onFramePresented(long timeUs) {
+                drawingView.setPlayheadUs(timeUs);
+                showPlayhead(timeUs / 1000);
+            }
+
+            @Override
+            public void onEnded() {
+                stopReverse();
+                playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
+            }
+        });
         initializePlayer();
         setListeners();
-        pickVideo();
+        SessionStore.Session session = sessionStore.load();
+        if (session != null) restoreSession(session);
+        // A fresh launch still opens the picker, with the last video already preparing behind it
+        if (session == null || savedInstanceState == null) pickVideo();
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
             if (checkSelfPermission(Manifest.permission.READ_MEDIA_VIDEO) != PackageManager.PERMISSION_GRANTED) {
                 requestPermissions(new String[]{Manifest.permission.READ_MEDIA_VIDEO}, 1001);
@@ -106,14 +247,23 @@ public class MainActivity extends AppCompatActivity {
         controlOverlay = findViewById(R.id.controlOverlay);
         topBar = findViewById(R.id.topBar);
         drawingView = findViewById(R.id.drawingView);
+        frameOverlay = findViewById(R.id.frameOverlay);
+        zoomLayout = findViewById(R.id.zoomLayout);
+        scrubPreview = findViewById(R.id.scrubPreview);
+        filmstrip = findViewById(R.id.filmstrip);
         modeText = findViewById(R.id.modeText);
         videoSeekBar = findViewById(R.id.videoSeekBar);
         currentTimeText = findViewById(R.id.currentTime);
         totalDurationText = findViewById(R.id.totalDuration);
+        statsText = findViewById(R.id.statsText);
     }
 
     private void setListeners() {
         playPauseButton.setOnClickListener(v -> togglePlayPause());
+        playPauseButton.setOnLongClickListener(v -> {
+            startReverse();
+            return true;
+        });
 
         nextFrameButton.setOnClickListener(v -> stepFrames(1));
         prevFrameButton.setOnClickListener(v -> stepFrames(-1));
@@ -134,41 +284,57 @@ public class MainActivity extends AppCompatActivity {
 
         selectVideoButton.setOnClickListener(v -> pickVideo());
 
-        speedSeekBar.setProgress(3);
+        speedSeekBar.setProgress(speedToProgress(1.0f));
         speedSeekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-                float speed = SPEEDS[progress];
-                speedLabel.setText(String.format("%s%s%s", getString(R.string.speedText), speed, getString(R.string.timesText)));
-                if (player != null) {
-                    player.setPlaybackParameters(new PlaybackParameters(speed));
-                }
-                previousSpeed = speed;
+                float speed = progressToSpeed(progress);
+                speedLabel.setText(String.format(Locale.US, "%s%.2f%s", getString(R.string.speedText), speed, getString(R.string.timesText)));
+                applySpeed(speed);
             }
             @Override public void onStartTrackingTouch(SeekBar seekBar) {}
-            @Override public void onStopTrackingTouch(SeekBar seekBar) {}
+            @Override public void onStopTrackingTouch(SeekBar seekBar) {
+                float speed = progressToSpeed(seekBar.getProgress());
+                for (float detent : SPEEDS) {
+                    if (Math.abs(speed - detent) <= SPEED_SNAP) {
+                        seekBar.setProgress(speedToProgress(detent));
+                        break;
+                    }
+                }
+            }
         });
 
         videoSeekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-                if (fromUser && player != null) {
-                    player.seekTo(progress);
+                if (!fromUser) return;
+                showTime(progress);
+                if (!thumbnailCache.isEmpty()) {
+                    // Previews come from the thumbnails; the player only seeks on release
+                    showScrubPreview(progress);
+                } else if (player != null) {
+                    hideCachedFrame();
+                    // Keyframe seeks keep up with the finger; the exact frame follows on release
+                    seekScheduler.seekTo(progress, false);
                 }
             }
-            @Override public void onStartTrackingTouch(SeekBar seekBar) {}
-            @Override public void onStopTrackingTouch(SeekBar seekBar) {}
-        });
-
-        updateSeekBarRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (player != null && player.isPlaying()) {
-                    int currentPos = (int) player.getCurrentPosition();
-                    videoSeekBar.setProgress(currentPos);
+            @Override public void onStartTrackingTouch(SeekBar seekBar) {
+                isScrubbing = true;
+                stopFramePlayback();
+            }
+            @Override public void onStopTrackingTouch(SeekBar seekBar) {
+                isScrubbing = false;
+                scrubPreview.setVisibility(View.GONE);
+                int target = videoSeekBar.snapToMarker(seekBar.getProgress(), (int) MARKER_SNAP_MS);
+                if (target != seekBar.getProgress()) {
+                    seekBar.setProgress(target);
+                    showTime(target);
+                }
+                if (player != null) {
+                    hideCachedFrame();
+                    seekScheduler.seekTo(target, true);
                 }
-                seekBarHandler.postDelayed(this, 1000);
             }
-        };
+        });
 
         playerView.setOnClickListener(v -> {
             toggleControls();
@@ -183,16 +349,215 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    private void updatePlayhead() {
+        if (player != null) showPlayhead(player.getCurrentPosition());
+    }
+
+    private void showPlayhead(long positionMs) {
+        if (isScrubbing) return;
+        videoSeekBar.setProgress((int) positionMs);
+        showTime(positionMs);
+    }
+
+    // Only touches the label when the displayed second changes
+    private void showTime(long positionMs) {
+        long second = positionMs / 1000;
+        if (second != shownSecond) {
+            shownSecond = second;
+            currentTimeText.setText(formatTime(positionMs));
+        }
+    }
+
+    // Floats the nearest thumbnail above the seek bar thumb
+    private void showScrubPreview(int positionMs) {
+        Bitmap thumb = thumbnailCache.getNearest(positionMs * 1000L);
+        if (thumb == null) return;
+        scrubPreview.setImageBitmap(thumb);
+        scrubPreview.setVisibility(View.VISIBLE);
+
+        int[] bar = new int[2], parent = new int[2];
+        videoSeekBar.getLocationInWindow(bar);
+        ((View) scrubPreview.getParent()).getLocationInWindow(parent);
+        int track = videoSeekBar.getWidth() - videoSeekBar.getPaddingLeft() - videoSeekBar.getPaddingRight();
+        float fraction = videoSeekBar.getMax() > 0 ? (float) positionMs / videoSeekBar.getMax() : 0f;
+        float centreX = bar[0] - parent[0] + videoSeekBar.getPaddingLeft() + fraction * track;
+        int parentWidth = ((View) scrubPreview.getParent()).getWidth();
+        float left = Math.max(0, Math.min(parentWidth - scrubPreview.getWidth(), centreX - scrubPreview.getWidth() / 2f));
+        float top = bar[1] - parent[1] - scrubPreview.getHeight() - filmstrip.getHeight();
+        scrubPreview.setTranslationX(left - scrubPreview.getLeft());
+        scrubPreview.setTranslationY(top - scrubPreview.getTop());
+    }
+
     private void togglePlayPause() {
-        if (player.isPlaying()) {
+        if (stopFramePlayback()) {
+            frameCache.prefill(frameIndex.frameAtMs(seekScheduler.targetPositionMs()));
+        } else if (player.isPlaying()) {
             player.pause();
             playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
+            if (frameIndex != null) frameCache.prefill(frameIndex.frameAtMs(player.getCurrentPosition()));
         } else {
-            player.play();
+            if (loopPlayer.isPinned()) {
+                startLoop();
+            } else if (canPlaySuperSlow(previousSpeed)) {
+                startSuperSlow();
+            } else {
+                syncPlayerToCachedFrame();
+                if (hasLoop()) {
+                    long pos = seekScheduler.targetPositionMs();
+                    if (pos < loopStartMs || pos >= loopEndMs) seekScheduler.seekTo(loopStartMs, true);
+                }
+                player.play();
+            }
             playPauseButton.setImageResource(R.drawable.baseline_pause_24);
         }
     }
 
+    private static float progressToSpeed(int progress) {
+        return MIN_SPEED + progress * SPEED_STEP;
+    }
+
+    private static int speedToProgress(float speed) {
+        return Math.round((speed - MIN_SPEED) / SPEED_STEP);
+    }
+
+    // Switches between the player and interpolated playback when the speed crosses over
+    private void applySpeed(float speed) {
+        previousSpeed = speed;
+        superSlowPlayer.setSpeed(speed);
+        reversePlayer.setSpeed(speed);
+        loopPlayer.setSpeed(speed);
+        if (player == null) return;
+        player.setPlaybackParameters(new PlaybackParameters(speed));
+        if (superSlowPlayer.isRunning() && !canPlaySuperSlow(speed)) {
+            stopSuperSlow();
+            player.play();
+        } else if (player.isPlaying() && canPlaySuperSlow(speed)) {
+            startSuperSlow();
+        }
+    }
+
+    private boolean canPlaySuperSlow(float speed) {
+        return speed < SuperSlowPlayer.MAX_SPEED && frameIndex != null && frameIndex.size() > 1;
+    }
+
+    private void startSuperSlow() {
+        long startUs = displayedFrame >= 0 ? frameIndex.timeUs(displayedFrame) : seekScheduler.targetPositionMs() * 1000;
+        player.pause();
+        displayedFrame = -1;
+        superSlowPlayer.setSpeed(previousSpeed);
+        superSlowPlayer.start(this, currentVideoUri, frameIndex, startUs);
+    }
+
+    // Leaves the player parked on the last interpolated position
+    private void stopSuperSlow() {
+        long timeUs = superSlowPlayer.stop();
+        if (timeUs >= 0) seekScheduler.seekTo(timeUs / 1000, true);
+        hideCachedFrame();
+    }
+
+    private void startReverse() {
+        if (player == null || frameIndex == null || frameIndex.size() == 0) return;
+        if (reversePlayer.isRunning()) {
+            stopFramePlayback();
+            return;
+        }
+        int frame = displayedFrame >= 0 ? displayedFrame : frameIndex.frameAtMs(seekScheduler.targetPositionMs());
+        long slowUs = superSlowPlayer.stop();
+        if (slowUs >= 0) frame = Math.max(0, frameIndex.frameAt(slowUs));
+        player.pause();
+        displayedFrame = -1;
+        reversePlayer.setMaxFrameSize(playerView.getWidth(), playerView.getHeight());
+        reversePlayer.setSpeed(previousSpeed);
+        reversePlayer.start(this, currentVideoUri, frameIndex, frame);
+        playPauseButton.setImageResource(R.drawable.baseline_pause_24);
+    }
+
+    private void stopReverse() {
+        int frame = reversePlayer.stop();
+        if (frame >= 0) seekScheduler.seekTo(frameIndex.positionMs(frame), true);
+        hideCachedFrame();
+    }
+
+    private boolean hasLoop() {
+        return loopStartMs >= 0 && loopEndMs > loopStartMs;
+    }
+
+    // Marks the shown position as loop start or end; an end before the start drops the other mark
+    private void setLoopPoint(boolean start) {
+        long pos = videoSeekBar.getProgress();
+        if (start) {
+            loopStartMs = pos;
+            if (loopEndMs >= 0 && loopEndMs <= pos) loopEndMs = -1;
+        } else {
+            loopEndMs = pos;
+            if (loopStartMs >= 0 && loopStartMs >= pos) loopStartMs = -1;
+        }
+        applyLoop();
+    }
+
+    private void clearLoop() {
+        loopStartMs = -1;
+        loopEndMs = -1;
+        applyLoop();
+    }
+
+    // Seek-based fallback, replaced by the pinned frames once they are decoded
+    private void sendLoopMessage() {
+        loopMessage = player.createMessage((type, payload) -> {
+            if (hasLoop() && player != null && player.isPlaying()) seekScheduler.seekTo(loopStartMs, true);
+        })
+                .setLooper(Looper.getMainLooper())
+                .setPosition(loopEndMs)
+                .setDeleteAfterDelivery(false)
+                .send();
+    }
+
+    private void applyLoop() {
+        if (loopPlayer.isPlaying()) stopFramePlayback();
+        loopPlayer.unpin();
+        if (loopMessage != null) {
+            loopMessage.cancel();
+            loopMessage = null;
+        }
+        videoSeekBar.setLoopRange((int) loopStartMs, hasLoop() ? (int) loopEndMs : -1);
+        if (!hasLoop() || player == null) return;
+
+        sendLoopMessage();
+        if (frameIndex != null && frameIndex.size() > 0) {
+            int first = frameIndex.frameAtMs(loopStartMs);
+            int last = Math.max(first, frameIndex.frameAtMs(loopEndMs) - 1);
+            loopPlayer.setMaxFrameSize(Math.min(playerView.getWidth(), LOOP_MAX_EDGE),
+                    Math.min(playerView.getHeight(), LOOP_MAX_EDGE));
+            loopPlayer.pin(this, currentVideoUri, frameIndex, first, last);
+        }
+    }
+
+    private void startLoop() {
+        int frame = displayedFrame >= 0 ? displayedFrame
+                : frameIndex.frameAtMs(player.isPlaying() ? player.getCurrentPosition() : seekScheduler.targetPositionMs());
+        player.pause();
+        displayedFrame = -1;
+        loopPlayer.setSpeed(previousSpeed);
+        loopPlayer.play(frame);
+        playPauseButton.setImageResource(R.drawable.baseline_pause_24);
+    }
+
+    private void stopLoop() {
+        int frame = loopPlayer.pause();
+        if (frame >= 0) seekScheduler.seekTo(frameIndex.positionMs(frame), true);
+        hideCachedFrame();
+    }
+
+    // Ends interpolated, reverse or pinned loop playback, leaving the player on the frame last shown
+    private boolean stopFramePlayback() {
+        boolean running = superSlowPlayer.isRunning() || reversePlayer.isRunning() || loopPlayer.isPlaying();
+        if (superSlowPlayer.isRunning()) stopSuperSlow();
+        if (reversePlayer.isRunning()) stopReverse();
+        if (loopPlayer.isPlaying()) stopLoop();
+        if (running) playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
+        return running;
+    }
+
     private void toggleControls() {
         controlsVisible = !controlsVisible;
         int visibility = controlsVisible ? View.VISIBLE : View.GONE;
@@ -212,12 +577,125 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void stepFrames(int direction) {
-        if (player != null && player.getPlaybackState() == Player.STATE_READY) {
+        stopFramePlayback();
+        if (player != null && (player.getPlaybackState() == Player.STATE_READY || seekScheduler.isBusy())) {
             player.pause();
-            long pos = player.getCurrentPosition();
-            long newPos = pos + direction * 33L;
-            player.seekTo(Math.max(newPos, 0));
+            long pos = seekScheduler.targetPositionMs();
+            if (frameIndex == null || frameIndex.size() == 0) {
+                // Index still building, fall back to a 30 fps guess
+                long newPos = pos + direction * 33L;
+                seekScheduler.seekTo(newPos, true);
+                return;
+            }
+            int current = displayedFrame >= 0 ? displayedFrame : frameIndex.frameAtMs(pos);
+            int frame = frameIndex.step(current, direction);
+            Bitmap cached = frameCache.get(frame);
+            if (cached != null) {
+                // Served from the cache; the player is only moved once playback resumes
+                displayedFrame = frame;
+                frameOverlay.setImageBitmap(cached);
+                frameOverlay.setVisibility(View.VISIBLE);
+                drawingView.setPlayheadUs(frameIndex.timeUs(frame));
+                showPlayhead(frameIndex.positionMs(frame));
+            } else {
+                hideCachedFrame();
+                seekScheduler.seekTo(frameIndex.positionMs(frame), true);
+            }
+            frameCache.prefill(frame);
+        }
+    }
+
+    private void syncPlayerToCachedFrame() {
+        if (displayedFrame >= 0 && frameIndex != null) {
+            seekScheduler.seekTo(frameIndex.positionMs(displayedFrame), true);
+        }
+        hideCachedFrame();
+    }
+
+    private void hideCachedFrame() {
+        displayedFrame = -1;
+        frameOverlay.setVisibility(View.GONE);
+        frameOverlay.setImageDrawable(null);
+    }
+
+    private static int frameCacheBudget() {
+        long max = Runtime.getRuntime().maxMemory() / 8;
+        return (int) Math.min(max, 96L * 1024 * 1024);
+    }
+
+    private static int loopBufferBudget() {
+        long max = Runtime.getRuntime().maxMemory() / 4;
+        return (int) Math.min(max, 128L * 1024 * 1024);
+    }
+
+    private static long undoHistoryBudget() {
+        return Math.min(Runtime.getRuntime().maxMemory() / 64, 8L * 1024 * 1024);
+    }
+
+    private static int reverseBufferBudget() {
+        long max = Runtime.getRuntime().maxMemory() / 16;
+        return (int) Math.min(max, 48L * 1024 * 1024);
+    }
+
+    private void loadFrameIndex(Uri videoUri) {
+        superSlowPlayer.stop();
+        reversePlayer.stop();
+        loopPlayer.pause();
+        frameIndex = null;
+        hideCachedFrame();
+        clearLoop();
+        frameCache.close();
+        thumbnailCache.close();
+        strobeGenerator.cancel();
+        motionAnalyzer.cancel();
+        zoomLayout.resetZoom();
+        videoSeekBar.setMarkers(new int[0]);
+        filmstrip.setVisibility(View.GONE);
+        frameIndexLoader.load(videoUri, this::onFrameIndexReady);
+    }
+
+    private void loadAnnotations(Uri videoUri) {
+        // Drawing waits for the saved strokes so new ones cannot collide with their ids
+        drawingView.setStrokes(Collections.<Stroke>emptyList());
+        drawingView.setDrawingEnabled(false);
+        annotationStore.open(videoUri, (uri, strokes) -> {
+            if (!uri.equals(currentVideoUri)) return;
+            drawingView.setStrokes(strokes);
+            drawingView.setDrawingEnabled(isInEditMode);
+        });
+    }
+
+    private void onFrameIndexReady(Uri uri, FrameIndex index) {
+        if (!uri.equals(currentVideoUri)) return;
+        frameIndex = index;
+        frameCache.open(this, uri, index, playerView.getWidth(), playerView.getHeight());
+        if (index.size() > 0) {
+            thumbnailCache.open(uri, index);
+            filmstrip.setSource(thumbnailCache, index.timeUs(0), index.timeUs(index.size() - 1) - index.timeUs(0));
+            filmstrip.setVisibility(View.VISIBLE);
         }
+        if (hasLoop()) applyLoop();
+        motionAnalyzer.analyze(uri, this::onActionSegmentsFound);
+    }
+
+    private void onActionSegmentsFound(Uri uri, long[] segmentsMs) {
+        if (!uri.equals(currentVideoUri)) return;
+        int[] starts = new int[segmentsMs.length / 2];
+        for (int i = 0; i < starts.length; i++) starts[i] = (int) segmentsMs[2 * i];
+        videoSeekBar.setMarkers(starts);
+    }
+
+    private void jumpToNextAction() {
+        int next = videoSeekBar.nextMarker(videoSeekBar.getProgress() + (int) MARKER_SNAP_MS);
+        if (next < 0 || player == null) {
+            Toast.makeText(this, "No further action found", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        stopFramePlayback();
+        videoSeekBar.setProgress(next);
+        showTime(next);
+        hideCachedFrame();
+        seekScheduler.seekTo(next, true);
     }
 
     private void pickVideo() {
@@ -230,6 +708,12 @@ public class MainActivity extends AppCompatActivity {
         if (player == null) {
             player = new ExoPlayer.Builder(this).build();
             playerView.setPlayer(player);
+            seekScheduler = new SeekScheduler(player, FRAME_SEEK_INTERVAL_MS);
+            seekScheduler.setListener((positionMs, latencyMs) -> {
+                metrics.recordSeek(latencyMs);
+                updatePlayhead();
+            });
+            player.addAnalyticsListener(metrics);
 
             player.addListener(new Player.Listener() {
                 @Override
@@ -238,9 +722,40 @@ public class MainActivity extends AppCompatActivity {
                         long durationMs = player.getDuration();
                         totalDurationText.setText(formatTime(durationMs));
                         videoSeekBar.setMax((int) durationMs);
+                        updatePlayhead();
+                    }
+                }
+
+                @Override
+                public void onPlayerError(@NonNull PlaybackException error) {
+                    Log.w(TAG, "Playback failed for " + currentVideoUri, error);
+                    // Usually a restored video that was deleted; decoder failures may pass
+                    if (isSourceError(error)) {
+                        videoUnreadable = true;
+                        sessionStore.clear();
+                    }
+                }
+
+                // Per-frame updates only while the video actually moves
+                @Override
+                public void onIsPlayingChanged(boolean isPlaying) {
+                    if (isPlaying) {
+                        playheadTicker.start();
+                    } else {
+                        playheadTicker.stop();
+                        updatePlayhead();
                     }
                 }
             });
+
+            // Annotation visibility follows the frames actually being released to the screen
+            player.setVideoFrameMetadataListener((presentationTimeUs, releaseTimeNs, format, mediaFormat) -> {
+                renderedFrameUs.set(presentationTimeUs);
+                if (annotationUpdatePending.compareAndSet(false, true)) {
+                    long delayMs = Math.max(0, (releaseTimeNs - System.nanoTime()) / 1_000_000);
+                    drawingView.postDelayed(applyRenderedFrameRunnable, delayMs);
+                }
+            });
         }
     }
 
@@ -255,24 +770,120 @@ public class MainActivity extends AppCompatActivity {
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
         if (requestCode == REQUEST_PICK_VIDEO && resultCode == RESULT_OK && data != null) {
-            initializePlayer();
             Uri videoUri = data.getData();
-            MediaItem item = MediaItem.fromUri(videoUri);
-            player.setMediaItem(item);
-            player.prepare();
-            playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
-            seekBarHandler.post(updateSeekBarRunnable);
+            if (videoUri == null) return;
+            // The restored video is already prepared where it was left
+            if (player != null && videoUri.equals(currentVideoUri) && player.getCurrentMediaItem() != null) return;
+            openVideo(videoUri, 0);
         }
     }
 
+    private void openVideo(Uri videoUri, long positionMs) {
+        currentVideoUri = videoUri;
+        videoUnreadable = false;
+        loadFrameIndex(videoUri);
+        loadAnnotations(videoUri);
+        preparePlayer(videoUri, positionMs);
+        playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
+        showPlayhead(positionMs);
+    }
+
+    private void preparePlayer(Uri videoUri, long positionMs) {
+        initializePlayer();
+        metrics.startFirstFrameTimer();
+        player.setPlaybackParameters(new PlaybackParameters(progressToSpeed(speedSeekBar.getProgress())));
+        player.setMediaItem(MediaItem.fromUri(videoUri), positionMs);
+        player.prepare();
+    }
+
+    private void restoreSession(SessionStore.Session session) {
+        speedSeekBar.setProgress(speedToProgress(session.speed));
+        // Drawing is enabled once the saved strokes are loaded
+        isInEditMode = session.editMode;
+        if (isInEditMode) drawingView.setVisibility(View.VISIBLE);
+        updateModeLabel();
+        openVideo(session.uri, session.positionMs);
+    }
+
+    // I/O and container errors: the file is gone, unreadable or not a video
+    private static boolean isSourceError(PlaybackException error) {
+        return error.errorCode >= PlaybackException.ERROR_CODE_IO_UNSPECIFIED
+                && error.errorCode <= PlaybackException.ERROR_CODE_PARSING_MANIFEST_UNSUPPORTED;
+    }
+
+    private long currentPositionMs() {
+        return player != null ? seekScheduler.targetPositionMs() : resumePositionMs;
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        frameSeekHandler.removeCallbacks(releasePlayerRunnable);
+        if (player == null && currentVideoUri != null) {
+            preparePlayer(currentVideoUri, resumePositionMs);
+            showPlayhead(resumePositionMs);
+            // The pinned frames survived; only the fallback belonged to the released player
+            if (hasLoop()) sendLoopMessage();
+        }
+        if (statsText.getVisibility() == View.VISIBLE) refreshStatsRunnable.run();
+    }
+
+    // The player stays prepared and paused with its decoders, so coming back shortly needs no
+    // re-prepare; it is released after a while in the background or under memory pressure
     @Override
     protected void onStop() {
         super.onStop();
-        if (player != null) {
-            seekBarHandler.removeCallbacks(updateSeekBarRunnable);
-            player.release();
-            player = null;
+        statsText.removeCallbacks(refreshStatsRunnable);
+        if (player == null) {
+            superSlowPlayer.stop();
+            reversePlayer.stop();
+            loopPlayer.pause();
+        } else {
+            stopFramePlayback();
+            player.pause();
+            playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
+        }
+        if (currentVideoUri != null && !videoUnreadable) {
+            sessionStore.save(new SessionStore.Session(currentVideoUri, currentPositionMs(),
+                    progressToSpeed(speedSeekBar.getProgress()), isInEditMode));
+        }
+        frameSeekHandler.postDelayed(releasePlayerRunnable, BACKGROUND_RELEASE_MS);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) releasePlayer();
+    }
+
+    private void releasePlayer() {
+        frameSeekHandler.removeCallbacks(releasePlayerRunnable);
+        if (player == null) return;
+        if (loopMessage != null) {
+            loopMessage.cancel();
+            loopMessage = null;
         }
+        resumePositionMs = seekScheduler.targetPositionMs();
+        playheadTicker.stop();
+        seekScheduler.release();
+        player.release();
+        player = null;
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        releasePlayer();
+        frameIndexLoader.shutdown();
+        frameCache.release();
+        thumbnailCache.shutdown();
+        strobeGenerator.shutdown();
+        motionAnalyzer.shutdown();
+        clipExporter.shutdown();
+        superSlowPlayer.release();
+        reversePlayer.release();
+        loopPlayer.release();
+        annotationStore.shutdown();
     }
 
     private void setupEditMenu() {
@@ -286,6 +897,24 @@ public class MainActivity extends AppCompatActivity {
                 drawingView.setDrawingEnabled(true);
                 return true;
             });
+            if (zoomLayout.isZoomed()) {
+                menu.getMenu().add("Reset Zoom").setOnMenuItemClickListener(item -> {
+                    zoomLayout.resetZoom();
+                    return true;
+                });
+            }
+            if (drawingView.canUndo()) {
+                menu.getMenu().add("Undo").setOnMenuItemClickListener(item -> {
+                    drawingView.undo();
+                    return true;
+                });
+            }
+            if (drawingView.canRedo()) {
+                menu.getMenu().add("Redo").setOnMenuItemClickListener(item -> {
+                    drawingView.redo();
+                    return true;
+                });
+            }
             menu.getMenu().add("Eraser").setOnMenuItemClickListener(item -> {
                 if (isInEditMode) drawingView.setTool(DrawingView.Tool.ERASER);
                 return true;
@@ -294,6 +923,51 @@ public class MainActivity extends AppCompatActivity {
                 drawingView.clearAll();
                 return true;
             });
+            menu.getMenu().add(drawingView.isLowLatencyInk() ? "Standard Ink" : "Low-Latency Ink")
+                    .setOnMenuItemClickListener(item -> {
+                        drawingView.setLowLatencyInk(!drawingView.isLowLatencyInk());
+                        return true;
+                    });
+            menu.getMenu().add("Set Loop Start (A)").setOnMenuItemClickListener(item -> {
+                setLoopPoint(true);
+                return true;
+            });
+            menu.getMenu().add("Set Loop End (B)").setOnMenuItemClickListener(item -> {
+                setLoopPoint(false);
+                return true;
+            });
+            if (hasLoop()) {
+                menu.getMenu().add("Clear Loop").setOnMenuItemClickListener(item -> {
+                    clearLoop();
+                    return true;
+                });
+            }
+            menu.getMenu().add("Next Action").setOnMenuItemClickListener(item -> {
+                jumpToNextAction();
+                return true;
+            });
+            menu.getMenu().add("Strobe Composite").setOnMenuItemClickListener(item -> {
+                showStrobeOptions();
+                return true;
+            });
+            menu.getMenu().add("Export Clip").setOnMenuItemClickListener(item -> {
+                exportClip();
+                return true;
+            });
+            menu.getMenu().add(statsText.getVisibility() == View.VISIBLE ? "Hide Stats" : "Show Stats")
+                    .setOnMenuItemClickListener(item -> {
+                        toggleStats();
+                        return true;
+                    });
+            menu.getMenu().add("Export Stats").setOnMenuItemClickListener(item -> {
+                exportStats();
+                return true;
+            });
+            menu.getMenu().add("Reset Stats").setOnMenuItemClickListener(item -> {
+                metrics.reset();
+                if (statsText.getVisibility() == View.VISIBLE) statsText.setText(metrics.summary());
+                return true;
+            });
             menu.getMenu().add("Exit Edit Mode").setOnMenuItemClickListener(item -> {
                 isInEditMode = false;
                 updateModeLabel();
@@ -304,8 +978,132 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    private void showStrobeOptions() {
+        if (frameIndex == null || frameIndex.size() < 2) {
+            Toast.makeText(this, "Frame index still loading", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] counts = {"4", "6", "8", "12", "16"};
+        new android.app.AlertDialog.Builder(this)
+                .setTitle(hasLoop() ? "Strobe frames (loop range)" : "Strobe frames (2 s around playhead)")
+                .setItems(counts, (dialog, which) -> generateStrobe(Integer.parseInt(counts[which])))
+                .show();
+    }
+
+    private void generateStrobe(int count) {
+        long pos = videoSeekBar.getProgress();
+        long fromMs = hasLoop() ? loopStartMs : Math.max(0, pos - STROBE_DEFAULT_HALF_RANGE_MS);
+        long toMs = hasLoop() ? loopEndMs : pos + STROBE_DEFAULT_HALF_RANGE_MS;
+        int first = frameIndex.frameAtMs(fromMs);
+        int last = Math.max(first + 1, Math.min(frameIndex.size() - 1, frameIndex.frameAtMs(toMs)));
+        Uri uri = currentVideoUri;
+        Toast.makeText(this, "Building strobe of " + count + " frames", Toast.LENGTH_SHORT).show();
+        strobeGenerator.generate(this, uri, frameIndex, first, last, count, (result, startUs) -> {
+            if (!uri.equals(currentVideoUri)) return;
+            if (result == null) {
+                Toast.makeText(this, "Could not build strobe", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            // Shown like a cached frame, so playing or stepping dismisses it
+            stopFramePlayback();
+            if (player != null) player.pause();
+            playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
+            displayedFrame = -1;
+            frameOverlay.setImageBitmap(result);
+            frameOverlay.setVisibility(View.VISIBLE);
+            drawingView.setPlayheadUs(startUs);
+            showPlayhead(startUs / 1000);
+            isInEditMode = true;
+            updateModeLabel();
+            drawingView.setVisibility(View.VISIBLE);
+            drawingView.setDrawingEnabled(true);
+        });
+    }
+
+    // Loop range if set, otherwise the whole clip, at the current speed
+    private void exportClip() {
+        if (frameIndex == null || frameIndex.size() < 2) {
+            Toast.makeText(this, "Frame index still loading", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        int first = hasLoop() ? frameIndex.frameAtMs(loopStartMs) : 0;
+        int last = hasLoop() ? Math.max(first, frameIndex.frameAtMs(loopEndMs)) : frameIndex.size() - 1;
+        float speed = progressToSpeed(speedSeekBar.getProgress());
+        File dir = getExternalFilesDir("exports");
+        if (dir == null) dir = new File(getFilesDir(), "exports");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Toast.makeText(this, "Cannot create " + dir, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File out = new File(dir, "clip-" + stamp + ".mp4");
+
+        ProgressBar bar = new ProgressBar(this, null, android.R.attr.progressBarStyleHorizontal);
+        bar.setMax(100);
+        android.app.AlertDialog dialog = new android.app.AlertDialog.Builder(this)
+                .setTitle(String.format(Locale.US, "Exporting at %.2fx", speed))
+                .setView(bar)
+                .setCancelable(false)
+                .setNegativeButton("Cancel", (d, which) -> clipExporter.cancel())
+                .show();
+        clipExporter.export(this, currentVideoUri, frameIndex, first, last, speed, drawingView.getStrokes(),
+                drawingView.getWidth(), drawingView.getHeight(), out, new ClipExporter.Listener() {
+                    @Override
+                    public void onExportProgress(float fraction) {
+                        bar.setProgress((int) (fraction * 100));
+                    }
+
+                    @Override
+                    public void onExportFinished(File file) {
+                        if (isDestroyed()) return;
+                        dialog.dismiss();
+                        Toast.makeText(MainActivity.this, file != null ? "Clip saved to " + file.getPath()
+                                : "Export stopped", Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    private void toggleStats() {
+        if (statsText.getVisibility() == View.VISIBLE) {
+            statsText.removeCallbacks(refreshStatsRunnable);
+            statsText.setVisibility(View.GONE);
+        } else {
+            statsText.setVisibility(View.VISIBLE);
+            refreshStatsRunnable.run();
+        }
+    }
+
+    private void exportStats() {
+        String json = metrics.toJson(Build.MANUFACTURER + " " + Build.MODEL + " (API " + Build.VERSION.SDK_INT + ")",
+                BuildConfig.VERSION_NAME + " (" + BuildConfig.VERSION_CODE + ")");
+        File dir = getExternalFilesDir("metrics");
+        if (dir == null) dir = new File(getFilesDir(), "metrics");
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File out = new File(dir, "metrics-" + stamp + ".json");
+        new Thread(() -> {
+            String message;
+            if (!out.getParentFile().isDirectory() && !out.getParentFile().mkdirs()) {
+                message = "Cannot create " + out.getParent();
+            } else {
+                try (FileOutputStream stream = new FileOutputStream(out)) {
+                    stream.write(json.getBytes(Charset.forName("UTF-8")));
+                    message = "Stats saved to " + out.getPath();
+                } catch (IOException e) {
+                    Log.w(TAG, "Stats export failed", e);
+                    message = "Stats export failed";
+                }
+            }
+            String result = message;
+            runOnUiThread(() -> Toast.makeText(this, result, Toast.LENGTH_LONG).show());
+        }, "MetricsExport").start();
+    }
+
     private void updateModeLabel() {
-        modeText.setText(isInEditMode ? "Draw" : "Play");
+        String mode = isInEditMode ? "Draw" : "Play";
+        if (zoomLayout.isZoomed()) {
+            mode += String.format(Locale.US, " %.1fx", zoomLayout.getZoom());
+        }
+        modeText.setText(mode);
     }
 
     private void showDrawOptions(@NonNull DrawingView view) {
@@ -315,6 +1113,7 @@ public class MainActivity extends AppCompatActivity {
         SeekBar strokeSeek = dialogView.findViewById(R.id.strokeSeek);
         Spinner colorSpinner = dialogView.findViewById(R.id.colorSpinner);
         Spinner shapeSpinner = dialogView.findViewById(R.id.shapeSpinner);
+        Spinner durationSpinner = dialogView.findViewById(R.id.durationSpinner);
 
         colorSpinner.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item,
                 new String[]{"Red", "Green", "Blue", "Black", "Yellow"}));
@@ -322,19 +1121,25 @@ public class MainActivity extends AppCompatActivity {
         shapeSpinner.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item,
                 new String[]{"Line", "Free", "Circle"}));
 
+        durationSpinner.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item,
+                new String[]{"0.5 s", "1 s", "2 s", "5 s", "Whole video"}));
+        durationSpinner.setSelection(1);
+
         strokeSeek.setProgress(10);
 
         new android.app.AlertDialog.Builder(this)
                 .setTitle("Draw Settings")
                 .setView(dialogView)
                 .setPositiveButton("OK", (dialog, which) -> {
+                    int color = Color.RED;
                     switch ((String) colorSpinner.getSelectedItem()) {
-                        case "Red": view.setColor(Color.RED); break;
-                        case "Green": view.setColor(Color.GREEN); break;
-                        case "Blue": view.setColor(Color.BLUE); break;
-                        case "Black": view.setColor(Color.BLACK); break;
-                        case "Yellow": view.setColor(Color.YELLOW); break;
+                        case "Green": color = Color.GREEN; break;
+                        case "Blue": color = Color.BLUE; break;
+                        case "Black": color = Color.BLACK; break;
+                        case "Yellow": color = Color.YELLOW; break;
                     }
+                    // One undo step for the whole dialog, not one per setting
+                    view.setStyle(color, strokeSeek.getProgress());
 
                     switch ((String) shapeSpinner.getSelectedItem()) {
                         case "Free": view.setShape(DrawingView.Shape.FREE); break;
@@ -342,7 +1147,13 @@ public class MainActivity extends AppCompatActivity {
                         case "Circle": view.setShape(DrawingView.Shape.CIRCLE); break;
                     }
 
-                    view.setStrokeWidth(strokeSeek.getProgress());
+                    switch ((String) durationSpinner.getSelectedItem()) {
+                        case "0.5 s": view.setAnnotationDurationUs(500_000); break;
+                        case "1 s": view.setAnnotationDurationUs(1_000_000); break;
+                        case "2 s": view.setAnnotationDurationUs(2_000_000); break;
+                        case "5 s": view.setAnnotationDurationUs(5_000_000); break;
+                        case "Whole video": view.setAnnotationDurationUs(0); break;
+                    }
                 })
                 .show();
     }
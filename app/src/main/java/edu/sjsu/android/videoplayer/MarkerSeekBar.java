@@ -0,0 +1,82 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+
+import androidx.appcompat.widget.AppCompatSeekBar;
+
+/** Seek bar that also shows the A/B loop range and action markers behind its track. */
+public class MarkerSeekBar extends AppCompatSeekBar {
+
+    private final Paint loopPaint = new Paint();
+    private final Paint markerPaint = new Paint();
+    private int loopStart = -1, loopEnd = -1;
+    private int[] markers = new int[0];
+
+    public MarkerSeekBar(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        loopPaint.setColor(Color.argb(120, 255, 193, 7));
+        markerPaint.setColor(Color.argb(200, 3, 218, 197));
+        markerPaint.setStrokeWidth(getResources().getDisplayMetrics().density * 2);
+    }
+
+    /** Loop range in progress units; a negative end hides it. */
+    void setLoopRange(int start, int end) {
+        if (start == loopStart && end == loopEnd) return;
+        loopStart = start;
+        loopEnd = end;
+        invalidate();
+    }
+
+    /** Sorted marker positions in progress units; empty hides them. */
+    void setMarkers(int[] positions) {
+        markers = positions;
+        invalidate();
+    }
+
+    /** First marker after {@code progress}, or -1. */
+    int nextMarker(int progress) {
+        for (int m : markers) {
+            if (m > progress) return m;
+        }
+        return -1;
+    }
+
+    /** Marker closest to {@code progress} if within {@code distance}, else {@code progress}. */
+    int snapToMarker(int progress, int distance) {
+        int best = progress, bestDistance = distance + 1;
+        for (int m : markers) {
+            int d = Math.abs(m - progress);
+            if (d < bestDistance) {
+                best = m;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    protected synchronized void onDraw(Canvas canvas) {
+        if (markers.length > 0 && getMax() > 0) {
+            float cy = getHeight() / 2f, half = getHeight() / 4f;
+            for (int m : markers) {
+                float x = xOf(m);
+                canvas.drawLine(x, cy - half, x, cy + half, markerPaint);
+            }
+        }
+        if (loopEnd > loopStart && loopStart >= 0 && getMax() > 0) {
+            float left = xOf(loopStart), right = xOf(loopEnd);
+            float cy = getHeight() / 2f, half = getHeight() / 6f;
+            canvas.drawRect(left, cy - half, Math.max(right, left + 2), cy + half, loopPaint);
+        }
+        super.onDraw(canvas);
+    }
+
+    private float xOf(int progress) {
+        int track = getWidth() - getPaddingLeft() - getPaddingRight();
+        return getPaddingLeft() + track * Math.min(1f, (float) progress / getMax());
+    }
+}
@@ -0,0 +1,166 @@
+package edu.sjsu.android.videoplayer;
+
+import android.media.Image;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Encodes frames to H.264 in an MP4. ARGB is converted to YUV 4:2:0 straight into the
+ * encoder's input image, honouring whatever plane layout the codec hands out. Waits on the
+ * encoder end with {@link CancellationException} once the pipeline stops, and with an
+ * {@link IOException} if the encoder makes no progress for {@link #STALL_MS}.
+ */
+final class MediaCodecSink implements RenderPipeline.FrameSink {
+
+    private static final String MIME = MediaFormat.MIMETYPE_VIDEO_AVC;
+    private static final long TIMEOUT_US = 10_000;
+    private static final long STALL_MS = 5_000;
+    // About 3.7 Mbit/s at 720p
+    private static final int BIT_RATE_PER_PIXEL = 4;
+
+    private final File output;
+    private final BooleanSupplier stopped;
+    private final MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+    private MediaCodec codec;
+    private MediaMuxer muxer;
+    private int track = -1;
+    private int width, height;
+    private long lastUs;
+
+    MediaCodecSink(File output, BooleanSupplier stopped) {
+        this.output = output;
+        this.stopped = stopped;
+    }
+
+    @Override
+    public void start(int width, int height) throws IOException {
+        this.width = width;
+        this.height = height;
+        MediaFormat format = MediaFormat.createVideoFormat(MIME, width, height);
+        format.setInteger(MediaFormat.KEY_COLOR_FORMAT, MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible);
+        format.setInteger(MediaFormat.KEY_BIT_RATE, width * height * BIT_RATE_PER_PIXEL);
+        format.setInteger(MediaFormat.KEY_FRAME_RATE, 30);
+        format.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, 1);
+        codec = MediaCodec.createEncoderByType(MIME);
+        codec.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+        codec.start();
+        muxer = new MediaMuxer(output.getPath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+    }
+
+    @Override
+    public void write(RenderPipeline.Frame frame) throws IOException {
+        int in = dequeueInput();
+        Image image = codec.getInputImage(in);
+        if (image == null) throw new IOException("Encoder gave no input image");
+        toYuv(frame.pixels, width, height, image);
+        codec.queueInputBuffer(in, 0, width * height * 3 / 2, frame.outputUs, 0);
+        lastUs = frame.outputUs;
+        drain(false);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        int in = dequeueInput();
+        codec.queueInputBuffer(in, 0, 0, lastUs, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+        drain(true);
+        release();
+        if (track < 0) throw new IOException("Encoder produced no output");
+    }
+
+    @Override
+    public void abort() {
+        release();
+        output.delete();
+    }
+
+    // Drains output meanwhile, since a full output side is what keeps input buffers busy
+    private int dequeueInput() throws IOException {
+        long deadline = SystemClock.uptimeMillis() + STALL_MS;
+        int in;
+        while ((in = codec.dequeueInputBuffer(TIMEOUT_US)) < 0) {
+            checkProgress(deadline);
+            drain(false);
+        }
+        return in;
+    }
+
+    private void checkProgress(long deadline) throws IOException {
+        if (stopped.getAsBoolean()) throw new CancellationException();
+        if (SystemClock.uptimeMillis() > deadline) throw new IOException("Encoder stalled");
+    }
+
+    private void drain(boolean endOfStream) throws IOException {
+        long deadline = SystemClock.uptimeMillis() + STALL_MS;
+        while (true) {
+            int out = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+            if (out == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                if (!endOfStream) return;
+                checkProgress(deadline);
+            } else if (out == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                track = muxer.addTrack(codec.getOutputFormat());
+                muxer.start();
+            } else if (out >= 0) {
+                ByteBuffer data = codec.getOutputBuffer(out);
+                boolean config = (info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+                if (data != null && info.size > 0 && !config && track >= 0) {
+                    data.position(info.offset).limit(info.offset + info.size);
+                    muxer.writeSampleData(track, data, info);
+                }
+                codec.releaseOutputBuffer(out, false);
+                if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) return;
+                deadline = SystemClock.uptimeMillis() + STALL_MS;
+            }
+        }
+    }
+
+    private void release() {
+        if (codec != null) {
+            try {
+                codec.stop();
+            } catch (RuntimeException ignored) {
+                // already in an error state
+            }
+            codec.release();
+            codec = null;
+        }
+        if (muxer != null) {
+            try {
+                if (track >= 0) muxer.stop();
+            } catch (RuntimeException ignored) {
+                // nothing was written
+            }
+            muxer.release();
+            muxer = null;
+        }
+    }
+
+    // BT.601 limited range; chroma taken from the top-left pixel of each 2x2 block
+    private static void toYuv(int[] argb, int width, int height, Image image) {
+        Image.Plane[] planes = image.getPlanes();
+        ByteBuffer y = planes[0].getBuffer(), u = planes[1].getBuffer(), v = planes[2].getBuffer();
+        int yRow = planes[0].getRowStride(), yPixel = planes[0].getPixelStride();
+        int uRow = planes[1].getRowStride(), uPixel = planes[1].getPixelStride();
+        int vRow = planes[2].getRowStride(), vPixel = planes[2].getPixelStride();
+        for (int row = 0; row < height; row++) {
+            for (int col = 0, i = row * width; col < width; col++, i++) {
+                int c = argb[i];
+                int r = (c >> 16) & 0xff, g = (c >> 8) & 0xff, b = c & 0xff;
+                y.put(row * yRow + col * yPixel, (byte) (((66 * r + 129 * g + 25 * b + 128) >> 8) + 16));
+                if ((row & 1) == 0 && (col & 1) == 0) {
+                    int cr = row >> 1, cc = col >> 1;
+                    u.put(cr * uRow + cc * uPixel, (byte) (((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128));
+                    v.put(cr * vRow + cc * vPixel, (byte) (((112 * r - 94 * g - 18 * b + 128) >> 8) + 128));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.media.Image;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the parts of a clip with action in it. Every frame is decoded with a private
+ * {@link MediaCodec} into YUV, its luma plane point-sampled down to a small grid and fed
+ * to {@link MotionEnergy}; the resulting curve is cached under {@code files/motion}.
+ * Runs at the lowest thread priority and stops as soon as a newer request comes in.
+ */
+final class MotionAnalyzer {
+
+    interface Callback {
+        /** Main thread; segment start and end times in ms, flattened as pairs. */
+        void onSegmentsFound(Uri uri, long[] segmentsMs);
+    }
+
+    private static final String TAG = "MotionAnalyzer";
+    private static final int MAGIC = 0x534d5645; // "SMVE"
+    private static final int VERSION = 1;
+    // magic, version, bin length, bin count
+    private static final int HEADER_BYTES = 20;
+    private static final int GRID_WIDTH = 64, GRID_HEIGHT = 36;
+    private static final long DEQUEUE_TIMEOUT_US = 10_000;
+    // Segment detection: 0.5 s smoothing, at least 0.3 s long, gaps under 1 s merged
+    private static final int SMOOTH_BINS = 5;
+    private static final float MAD_FACTOR = 4f;
+    private static final float ENERGY_FLOOR = 1.5f;
+    private static final int MIN_BINS = 3;
+    private static final int MERGE_GAP_BINS = 10;
+
+    private final File dir;
+    private final Context context;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+        r.run();
+    }, "MotionAnalyzer"));
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final AtomicInteger generation = new AtomicInteger();
+
+    MotionAnalyzer(Context context) {
+        this.context = context.getApplicationContext();
+        dir = new File(context.getFilesDir(), "motion");
+    }
+
+    /** Loads the cached curve of {@code uri} or analyses the clip, then reports its segments. */
+    void analyze(Uri uri, Callback callback) {
+        int gen = generation.incrementAndGet();
+        File file = new File(dir, CacheKeys.of(uri.toString()) + ".smve");
+        worker.execute(() -> {
+            MotionEnergy energy = read(file);
+            if (energy == null) {
+                energy = measure(uri, gen);
+                if (energy == null) return;
+                write(file, energy);
+            }
+            int[] bins = MotionEnergy.findSegments(energy.getCurve(), energy.getBinCount(), SMOOTH_BINS,
+                    MAD_FACTOR, ENERGY_FLOOR, MIN_BINS, MERGE_GAP_BINS);
+            long[] ms = new long[bins.length];
+            for (int i = 0; i < bins.length; i++) ms[i] = bins[i] * energy.getBinUs() / 1000;
+            main.post(() -> {
+                if (gen == generation.get()) callback.onSegmentsFound(uri, ms);
+            });
+        });
+    }
+
+    void cancel() {
+        generation.incrementAndGet();
+    }
+
+    void shutdown() {
+        cancel();
+        worker.shutdown();
+    }
+
+    // Null if cancelled or the clip cannot be decoded
+    private MotionEnergy measure(Uri uri, int gen) {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            extractor.setDataSource(context, uri, null);
+            int track = FrameIndexLoader.findVideoTrack(extractor);
+            if (track < 0) return null;
+            MediaFormat format = extractor.getTrackFormat(track);
+            extractor.selectTrack(track);
+            long durationUs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : 0;
+            format.setInteger(MediaFormat.KEY_COLOR_FORMAT, MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible);
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            MotionEnergy energy = new MotionEnergy(GRID_WIDTH, GRID_HEIGHT, MotionEnergy.DEFAULT_BIN_US, durationUs);
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            boolean inputDone = false;
+            while (gen == generation.get()) {
+                if (!inputDone) {
+                    int in = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+                    if (in >= 0) {
+                        ByteBuffer buffer = codec.getInputBuffer(in);
+                        int size = buffer == null ? -1 : extractor.readSampleData(buffer, 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(in, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(in, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+                int out = codec.dequeueOutputBuffer(info, DEQUEUE_TIMEOUT_US);
+                if (out < 0) continue;
+                if (info.size > 0) {
+                    Image image = codec.getOutputImage(out);
+                    if (image != null) {
+                        sampleLuma(image, energy.frameBuffer());
+                        image.close();
+                        energy.commit(info.presentationTimeUs);
+                    }
+                }
+                codec.releaseOutputBuffer(out, false);
+                if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) return energy;
+            }
+            return null;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Motion analysis of " + uri + " failed", e);
+            return null;
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (RuntimeException ignored) {
+                    // already in an error state
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    // Point-samples the Y plane onto the grid at the centre of each cell
+    private static void sampleLuma(Image image, byte[] out) {
+        Image.Plane plane = image.getPlanes()[0];
+        ByteBuffer y = plane.getBuffer();
+        int rowStride = plane.getRowStride(), pixelStride = plane.getPixelStride();
+        Rect crop = image.getCropRect();
+        int i = 0;
+        for (int gy = 0; gy < GRID_HEIGHT; gy++) {
+            int row = (crop.top + (2 * gy + 1) * crop.height() / (2 * GRID_HEIGHT)) * rowStride;
+            for (int gx = 0; gx < GRID_WIDTH; gx++) {
+                int col = crop.left + (2 * gx + 1) * crop.width() / (2 * GRID_WIDTH);
+                out[i++] = y.get(row + col * pixelStride);
+            }
+        }
+    }
+
+    // Null if missing or stale; a corrupt file is deleted so the clip is analysed again
+    private static MotionEnergy read(File file) {
+        if (!file.isFile()) return null;
+        long length = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            long binUs = in.readLong();
+            int count = in.readInt();
+            if (binUs <= 0 || count < 0 || HEADER_BYTES + 4L * count != length) {
+                throw new IOException("Bad bin count " + count + " for " + length + " bytes");
+            }
+            float[] curve = new float[count];
+            for (int i = 0; i < count; i++) curve[i] = in.readFloat();
+            return new MotionEnergy(curve, count, binUs);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Deleting unreadable " + file, e);
+        }
+        file.delete();
+        return null;
+    }
+
+    private static void write(File file, MotionEnergy energy) {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) return;
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(energy.getBinUs());
+            out.writeInt(energy.getBinCount());
+            float[] curve = energy.getCurve();
+            for (int i = 0; i < energy.getBinCount(); i++) out.writeFloat(curve[i]);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write " + file, e);
+            return;
+        }
+        if (!tmp.renameTo(file)) tmp.delete();
+    }
+}
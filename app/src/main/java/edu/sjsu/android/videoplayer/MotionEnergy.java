@@ -0,0 +1,135 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.Arrays;
+
+/**
+ * Motion-energy curve of a clip: the mean absolute luma difference between consecutive
+ * downscaled frames, kept as the maximum per fixed-length time bin. Frames are written into
+ * {@link #frameBuffer()} and committed in presentation order; the two frame buffers and the
+ * bins are allocated up front, so feeding frames allocates nothing.
+ */
+final class MotionEnergy {
+
+    static final long DEFAULT_BIN_US = 100_000;
+
+    private final int width, height;
+    private final long binUs;
+    private byte[] previous, current;
+    private boolean hasPrevious;
+    private float[] bins;
+    private int binCount;
+
+    MotionEnergy(int width, int height, long binUs, long durationUs) {
+        if (width <= 0 || height <= 0 || binUs <= 0) throw new IllegalArgumentException();
+        this.width = width;
+        this.height = height;
+        this.binUs = binUs;
+        previous = new byte[width * height];
+        current = new byte[width * height];
+        bins = new float[(int) Math.max(1, durationUs / binUs + 1)];
+    }
+
+    /** A finished curve, e.g. read back from disk. */
+    MotionEnergy(float[] curve, int count, long binUs) {
+        this.width = 0;
+        this.height = 0;
+        this.binUs = binUs;
+        bins = curve;
+        binCount = count;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /** Row-major luma of the next frame goes here before {@link #commit(long)}. */
+    byte[] frameBuffer() {
+        return current;
+    }
+
+    /** Scores the frame in {@link #frameBuffer()} against the previous one. */
+    void commit(long timeUs) {
+        if (hasPrevious) {
+            long sum = 0;
+            for (int i = 0; i < current.length; i++) sum += Math.abs((current[i] & 0xff) - (previous[i] & 0xff));
+            int bin = (int) Math.max(0, timeUs / binUs);
+            if (bin >= bins.length) bins = Arrays.copyOf(bins, Math.max(bin + 1, bins.length * 2));
+            float energy = (float) sum / current.length;
+            if (energy > bins[bin]) bins[bin] = energy;
+            binCount = Math.max(binCount, bin + 1);
+        }
+        byte[] swap = previous;
+        previous = current;
+        current = swap;
+        hasPrevious = true;
+    }
+
+    long getBinUs() {
+        return binUs;
+    }
+
+    int getBinCount() {
+        return binCount;
+    }
+
+    /** Backing array; only the first {@link #getBinCount()} entries are meaningful. */
+    float[] getCurve() {
+        return bins;
+    }
+
+    /**
+     * Runs of bins whose smoothed energy stands out from the clip's typical level, as
+     * {@code [start, end)} bin pairs flattened into one array. The threshold is the median
+     * plus {@code k} median absolute deviations, but never below {@code floor}; runs closer than
+     * {@code mergeGap} bins are joined and runs shorter than {@code minBins} dropped.
+     */
+    static int[] findSegments(float[] curve, int count, int smoothBins, float k, float floor,
+                              int minBins, int mergeGap) {
+        if (count == 0) return new int[0];
+        float[] smooth = new float[count];
+        int half = smoothBins / 2;
+        double window = 0;
+        // Centred moving average over a sliding sum
+        for (int i = 0; i < Math.min(half, count); i++) window += curve[i];
+        for (int i = 0; i < count; i++) {
+            if (i + half < count) window += curve[i + half];
+            if (i - half - 1 >= 0) window -= curve[i - half - 1];
+            int n = Math.min(count - 1, i + half) - Math.max(0, i - half) + 1;
+            smooth[i] = (float) (window / n);
+        }
+        float[] sorted = Arrays.copyOf(smooth, count);
+        Arrays.sort(sorted);
+        float median = sorted[count / 2];
+        for (int i = 0; i < count; i++) sorted[i] = Math.abs(smooth[i] - median);
+        Arrays.sort(sorted);
+        float threshold = Math.max(floor, median + k * sorted[count / 2]);
+
+        int[] out = new int[count + 1];
+        int n = 0;
+        for (int i = 0; i < count; ) {
+            if (smooth[i] <= threshold) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < count && smooth[i] > threshold) i++;
+            if (n > 0 && start - out[n - 1] <= mergeGap) {
+                out[n - 1] = i;
+            } else {
+                out[n++] = start;
+                out[n++] = i;
+            }
+        }
+        int kept = 0;
+        for (int s = 0; s < n; s += 2) {
+            if (out[s + 1] - out[s] < minBins) continue;
+            out[kept++] = out[s];
+            out[kept++] = out[s + 1];
+        }
+        return Arrays.copyOf(out, kept);
+    }
+}
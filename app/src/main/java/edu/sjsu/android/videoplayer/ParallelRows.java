@@ -0,0 +1,48 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Splits a range of rows (or tile rows) into fork/join tasks. */
+final class ParallelRows {
+
+    interface Body {
+        void run(int from, int to);
+    }
+
+    private ParallelRows() {}
+
+    /** Runs {@code body} over {@code [0, rows)} in slices of at most {@code grain} rows and waits for all of them. */
+    static void forEach(ForkJoinPool pool, int rows, int grain, Body body) {
+        if (rows <= 0) return;
+        if (rows <= grain || pool.getParallelism() == 1) {
+            body.run(0, rows);
+        } else {
+            pool.invoke(new Slice(body, 0, rows, Math.max(1, grain)));
+        }
+    }
+
+    private static final class Slice extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Body body;
+        private final int from, to, grain;
+
+        Slice(Body body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Slice(body, from, mid, grain), new Slice(body, mid, to, grain));
+        }
+    }
+}
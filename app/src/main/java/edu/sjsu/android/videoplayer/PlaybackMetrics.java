@@ -0,0 +1,119 @@
+package edu.sjsu.android.videoplayer;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
+import com.google.android.exoplayer2.source.LoadEventInfo;
+import com.google.android.exoplayer2.source.MediaLoadData;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and histograms describing playback smoothness. Attached to the player as an
+ * {@link AnalyticsListener}; other components record into the public histograms directly.
+ * Everything is lock free, so recording is safe from the playback and render threads.
+ */
+final class PlaybackMetrics implements AnalyticsListener {
+
+    final Histogram seekLatencyMs = Histogram.exponential("seek_latency", "ms", 8192);
+    final Histogram decoderInitMs = Histogram.exponential("decoder_init", "ms", 8192);
+    final Histogram audioDecoderInitMs = Histogram.exponential("audio_decoder_init", "ms", 8192);
+    final Histogram bufferedMs = Histogram.exponential("buffered", "ms", 65536);
+    final Histogram drawUs = Histogram.exponential("drawing_view_on_draw", "us", 131072);
+    final Histogram droppedPerBurst = Histogram.exponential("dropped_frames_per_report", "frames", 1024);
+    final Histogram interpolateUs = Histogram.exponential("interpolate_frame", "us", 1 << 20);
+    final Histogram inkLatencyMs = Histogram.exponential("ink_touch_to_draw", "ms", 1024);
+    final Histogram firstFrameMs = Histogram.exponential("time_to_first_frame", "ms", 16384);
+
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong renderedFirstFrames = new AtomicLong();
+    private final AtomicLong seeksTimedOut = new AtomicLong();
+    private final AtomicLong firstFrameStartMs = new AtomicLong(-1);
+
+    private final Histogram[] all = {seekLatencyMs, decoderInitMs, audioDecoderInitMs, bufferedMs, drawUs,
+            droppedPerBurst, interpolateUs, inkLatencyMs, firstFrameMs};
+
+    void recordSeek(long latencyMs) {
+        if (latencyMs < 0) {
+            seeksTimedOut.incrementAndGet();
+        } else {
+            seekLatencyMs.record(latencyMs);
+        }
+    }
+
+    /** Times the next first frame from now; call when preparing or re-preparing the player. */
+    void startFirstFrameTimer() {
+        firstFrameStartMs.set(SystemClock.elapsedRealtime());
+    }
+
+    long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    @Override
+    public void onDroppedVideoFrames(@NonNull EventTime eventTime, int droppedFrames, long elapsedMs) {
+        this.droppedFrames.addAndGet(droppedFrames);
+        droppedPerBurst.record(droppedFrames);
+        bufferedMs.record(eventTime.totalBufferedDurationMs);
+    }
+
+    @Override
+    public void onVideoDecoderInitialized(@NonNull EventTime eventTime, @NonNull String decoderName,
+                                          long initializedTimestampMs, long initializationDurationMs) {
+        decoderInitMs.record(initializationDurationMs);
+    }
+
+    @Override
+    public void onAudioDecoderInitialized(@NonNull EventTime eventTime, @NonNull String decoderName,
+                                          long initializedTimestampMs, long initializationDurationMs) {
+        audioDecoderInitMs.record(initializationDurationMs);
+    }
+
+    @Override
+    public void onLoadCompleted(@NonNull EventTime eventTime, @NonNull LoadEventInfo loadEventInfo,
+                                @NonNull MediaLoadData mediaLoadData) {
+        bufferedMs.record(eventTime.totalBufferedDurationMs);
+    }
+
+    @Override
+    public void onRenderedFirstFrame(@NonNull EventTime eventTime, @NonNull Object output, long renderTimeMs) {
+        renderedFirstFrames.incrementAndGet();
+        long startMs = firstFrameStartMs.getAndSet(-1);
+        if (startMs >= 0) firstFrameMs.record(Math.max(0, renderTimeMs - startMs));
+    }
+
+    /** Starts a fresh measurement; a first frame already being timed is still recorded. */
+    void reset() {
+        for (Histogram h : all) h.reset();
+        droppedFrames.set(0);
+        renderedFirstFrames.set(0);
+        seeksTimedOut.set(0);
+    }
+
+    /** One-line summary for the on-screen overlay. */
+    String summary() {
+        return String.format(Locale.US,
+                "dropped %d | seek p50 %dms p95 %dms | draw p95 %dus | buffer %dms | decoder init %dms | first frame %dms",
+                droppedFrames.get(), seekLatencyMs.percentile(0.5), seekLatencyMs.percentile(0.95),
+                drawUs.percentile(0.95), bufferedMs.percentile(0.5), decoderInitMs.getMax(),
+                firstFrameMs.percentile(0.5));
+    }
+
+    String toJson(String device, String build) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("{\"device\":\"").append(device.replace("\"", "'"))
+                .append("\",\"build\":\"").append(build.replace("\"", "'"))
+                .append("\",\"counters\":{\"dropped_frames\":").append(droppedFrames.get())
+                .append(",\"rendered_first_frames\":").append(renderedFirstFrames.get())
+                .append(",\"seeks_timed_out\":").append(seeksTimedOut.get())
+                .append("},\"histograms\":[");
+        for (int i = 0; i < all.length; i++) {
+            if (i > 0) out.append(',');
+            all[i].appendJson(out);
+        }
+        return out.append("]}").toString();
+    }
+}
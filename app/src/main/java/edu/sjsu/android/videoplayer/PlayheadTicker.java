@@ -0,0 +1,35 @@
+package edu.sjsu.android.videoplayer;
+
+import android.view.Choreographer;
+
+/**
+ * Runs a callback once per display frame while started, and not at all otherwise.
+ * Main thread only.
+ */
+final class PlayheadTicker implements Choreographer.FrameCallback {
+
+    private final Runnable onFrame;
+    private boolean running;
+
+    PlayheadTicker(Runnable onFrame) {
+        this.onFrame = onFrame;
+    }
+
+    void start() {
+        if (running) return;
+        running = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+        onFrame.run();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
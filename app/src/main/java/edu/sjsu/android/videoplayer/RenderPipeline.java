@@ -0,0 +1,207 @@
+package edu.sjsu.android.videoplayer;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams a time range of a clip through decode, composite and encode. Each stage has its
+ * own thread (the sink runs on the caller's) and they hand ARGB frames along bounded queues
+ * drawn from a fixed pool, so memory does not grow with the clip length and a slow encoder
+ * simply backs the decoder up. Output timestamps are the source times retimed by the
+ * playback speed; frames closer together than the minimum output interval are dropped.
+ */
+final class RenderPipeline {
+
+    /** One pooled frame; {@code pixels} is row-major ARGB of the pipeline size. */
+    static final class Frame {
+        final int[] pixels;
+        long sourceUs;
+        long outputUs;
+
+        Frame(int size) {
+            pixels = new int[size];
+        }
+    }
+
+    interface Source {
+        /** Fills the next frame in presentation order; false once the clip ends. */
+        boolean next(Frame frame) throws IOException;
+    }
+
+    interface Compositor {
+        /** Draws into {@code frame.pixels} in place. */
+        void composite(Frame frame);
+    }
+
+    interface FrameSink {
+        void start(int width, int height) throws IOException;
+        void write(Frame frame) throws IOException;
+        void finish() throws IOException;
+        /** Called instead of {@link #finish()} on failure or cancellation. */
+        void abort();
+    }
+
+    interface ProgressListener {
+        /** Caller's thread, after every written frame. */
+        void onProgress(int framesWritten, float fraction);
+    }
+
+    static final int DEFAULT_QUEUE_DEPTH = 4;
+    private static final long POLL_MS = 50;
+    private static final Frame END = new Frame(0);
+
+    private final int width, height;
+    private final long startUs, endUs;
+    private final float speed;
+    private int depth = DEFAULT_QUEUE_DEPTH;
+    private long minIntervalUs;
+    private volatile boolean stopped;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    RenderPipeline(int width, int height, long startUs, long endUs, float speed) {
+        if (width <= 0 || height <= 0 || endUs <= startUs || speed <= 0) throw new IllegalArgumentException();
+        this.width = width;
+        this.height = height;
+        this.startUs = startUs;
+        this.endUs = endUs;
+        this.speed = speed;
+    }
+
+    void setQueueDepth(int depth) {
+        this.depth = Math.max(1, depth);
+    }
+
+    void setMinFrameIntervalUs(long intervalUs) {
+        minIntervalUs = Math.max(0, intervalUs);
+    }
+
+    /** Frames allocated by {@link #run}: both queues full plus one held by each stage. */
+    int poolSize() {
+        return 2 * depth + 3;
+    }
+
+    void cancel() {
+        stopped = true;
+    }
+
+    /** True once cancelled or failed; stages that block outside the pipeline's queues poll it. */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Renders the range and returns the number of frames written. Throws
+     * {@link CancellationException} if cancelled, or the first stage failure.
+     */
+    int run(Source source, Compositor compositor, FrameSink sink, ProgressListener listener)
+            throws IOException, InterruptedException {
+        BlockingQueue<Frame> free = new ArrayBlockingQueue<>(poolSize());
+        BlockingQueue<Frame> decoded = new ArrayBlockingQueue<>(depth);
+        BlockingQueue<Frame> composed = new ArrayBlockingQueue<>(depth);
+        for (int i = 0; i < poolSize(); i++) free.add(new Frame(width * height));
+
+        Thread decoder = new Thread(() -> stage(() -> decode(source, free, decoded)), "RenderDecode");
+        Thread composer = new Thread(() -> stage(() -> composite(compositor, decoded, composed)), "RenderComposite");
+        int written = 0;
+        try {
+            sink.start(width, height);
+            decoder.start();
+            composer.start();
+            Frame frame;
+            while ((frame = take(composed)) != END) {
+                if (stopped) throw new CancellationException();
+                sink.write(frame);
+                written++;
+                if (listener != null) {
+                    listener.onProgress(written, Math.min(1f, (float) (frame.sourceUs - startUs) / (endUs - startUs)));
+                }
+                put(free, frame);
+            }
+            throwIfFailed();
+            sink.finish();
+            return written;
+        } catch (CancellationException e) {
+            stopped = true;
+            sink.abort();
+            throwIfFailed();
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            stopped = true;
+            sink.abort();
+            throw e;
+        } finally {
+            stopped = true;
+            decoder.join();
+            composer.join();
+        }
+    }
+
+    private interface Body {
+        void run() throws IOException, InterruptedException;
+    }
+
+    private void stage(Body body) {
+        try {
+            body.run();
+        } catch (CancellationException | InterruptedException ignored) {
+            // stopping
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+            stopped = true;
+        }
+    }
+
+    private void decode(Source source, BlockingQueue<Frame> free, BlockingQueue<Frame> out)
+            throws IOException, InterruptedException {
+        long lastOutputUs = Long.MIN_VALUE;
+        Frame frame = take(free);
+        while (source.next(frame)) {
+            if (frame.sourceUs >= endUs) break;
+            if (frame.sourceUs < startUs) continue;
+            frame.outputUs = Math.round((frame.sourceUs - startUs) / (double) speed);
+            if (lastOutputUs != Long.MIN_VALUE && frame.outputUs - lastOutputUs < minIntervalUs) continue;
+            lastOutputUs = frame.outputUs;
+            put(out, frame);
+            frame = take(free);
+        }
+        put(out, END);
+    }
+
+    private void composite(Compositor compositor, BlockingQueue<Frame> in, BlockingQueue<Frame> out)
+            throws InterruptedException {
+        Frame frame;
+        while ((frame = take(in)) != END) {
+            compositor.composite(frame);
+            put(out, frame);
+        }
+        put(out, END);
+    }
+
+    // Blocking queue operations that give up once any stage stops the pipeline
+    private Frame take(BlockingQueue<Frame> queue) throws InterruptedException {
+        Frame frame;
+        while ((frame = queue.poll(POLL_MS, TimeUnit.MILLISECONDS)) == null) {
+            if (stopped) throw new CancellationException();
+        }
+        return frame;
+    }
+
+    private void put(BlockingQueue<Frame> queue, Frame frame) throws InterruptedException {
+        while (!queue.offer(frame, POLL_MS, TimeUnit.MILLISECONDS)) {
+            if (stopped) throw new CancellationException();
+        }
+    }
+
+    private void throwIfFailed() throws IOException {
+        Throwable t = failure.get();
+        if (t == null) return;
+        if (t instanceof IOException) throw (IOException) t;
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        throw new IOException(t);
+    }
+}
@@ -0,0 +1,261 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Process;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a clip backwards. A worker decodes each GOP forward once into a segment of bitmaps
+ * and queues it; frames are presented from the end of the current segment on an
+ * {@link ImageView} while the GOP before it decodes. At most three segments exist at once
+ * (shown, queued, decoding), each capped at a third of the memory budget, plus the one frame
+ * of an earlier segment that may still be on screen. Control methods are main thread only.
+ */
+final class ReversePlayer implements Choreographer.FrameCallback {
+
+    interface Listener {
+        void onFramePresented(long timeUs);
+
+        void onEnded();
+    }
+
+    private static final String TAG = "ReversePlayer";
+    // Until the size of a decoded frame is known
+    private static final int FIRST_SEGMENT_FRAMES = 8;
+    private static final int DECODE_CHUNK = 8;
+    private static final long POLL_MS = 50;
+
+    private static final class Segment {
+        final int start;
+        final List<Bitmap> frames;
+
+        Segment(int start, List<Bitmap> frames) {
+            this.start = start;
+            this.frames = frames;
+        }
+
+        int end() {
+            return start + frames.size();
+        }
+
+        void recycle() {
+            for (Bitmap b : frames) {
+                if (b != null) b.recycle();
+            }
+        }
+    }
+
+    private final ImageView target;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+        r.run();
+    }, "ReversePlayer"));
+    private Listener listener;
+    private volatile int budgetBytes;
+    private int maxWidth, maxHeight;
+
+    private float speed = 1f;
+    private Session session;
+    private Segment current;
+    // What the view shows, and the frame of a dropped segment that was on screen when it went
+    private Bitmap shownBitmap, retired;
+    private int shownFrame = -1;
+    // Media clock: at anchorNs the playhead was at anchorUs, running backwards at speed
+    private long anchorNs, anchorUs;
+
+    ReversePlayer(ImageView target, int budgetBytes) {
+        this.target = target;
+        this.budgetBytes = budgetBytes;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void setBudgetBytes(int budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /** Largest size frames are decoded at; takes effect on the next {@link #start}. */
+    void setMaxFrameSize(int maxWidth, int maxHeight) {
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    boolean isRunning() {
+        return session != null;
+    }
+
+    void setSpeed(float speed) {
+        if (session != null && anchorNs != 0) {
+            long now = System.nanoTime();
+            anchorUs = mediaTimeUs(now);
+            anchorNs = now;
+        }
+        this.speed = speed;
+    }
+
+    /** Starts playing backwards from {@code startFrame}, which is shown first. */
+    void start(Context context, Uri uri, FrameIndex index, int startFrame) {
+        stop();
+        session = new Session(context.getApplicationContext(), uri, index, startFrame + 1,
+                Math.max(1, maxWidth), Math.max(1, maxHeight));
+        anchorNs = 0;
+        anchorUs = index.timeUs(startFrame);
+        worker.execute(session);
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /** Stops presenting and returns the frame last shown, or -1 if none was. */
+    int stop() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (session == null) return -1;
+        session.cancelled = true;
+        Segment pending;
+        while ((pending = session.ready.poll()) != null) pending.recycle();
+        session = null;
+        if (current != null) retire(current);
+        current = null;
+        int frame = shownFrame;
+        shownFrame = -1;
+        return frame;
+    }
+
+    void release() {
+        stop();
+        worker.shutdownNow();
+        // Nothing starts again, so the frame left on screen can go too
+        target.setImageDrawable(null);
+        shownBitmap = null;
+        if (retired != null) retired.recycle();
+        retired = null;
+    }
+
+    // Recycles a segment except the frame on screen, which is kept until a later one replaces it
+    private void retire(Segment segment) {
+        boolean showing = false;
+        for (Bitmap b : segment.frames) {
+            if (b == null) continue;
+            if (b == shownBitmap) {
+                showing = true;
+            } else {
+                b.recycle();
+            }
+        }
+        if (showing) {
+            // The previous one was replaced on screen by a frame of this segment
+            if (retired != null) retired.recycle();
+            retired = shownBitmap;
+        }
+    }
+
+    private long mediaTimeUs(long nowNs) {
+        return anchorUs - (long) ((nowNs - anchorNs) / 1000 * (double) speed);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        Session s = session;
+        if (s == null) return;
+        if (current == null || shownFrame == current.start) {
+            // Need the next segment; hold the clock at the boundary until it arrives
+            Segment next = s.ready.poll();
+            if (next == null) {
+                if (s.ended) {
+                    stop();
+                    if (listener != null) listener.onEnded();
+                    return;
+                }
+                if (shownFrame >= 0 && mediaTimeUs(frameTimeNanos) < s.index.timeUs(shownFrame)) {
+                    anchorNs = frameTimeNanos;
+                    anchorUs = s.index.timeUs(shownFrame);
+                }
+                Choreographer.getInstance().postFrameCallback(this);
+                return;
+            }
+            if (current != null) retire(current);
+            current = next;
+        }
+        if (anchorNs == 0) anchorNs = frameTimeNanos;
+        int due = s.index.frameAt(mediaTimeUs(frameTimeNanos));
+        if (shownFrame < 0 || due < shownFrame) {
+            // Overdue frames of this segment are skipped rather than slowing the clock
+            int frame = Math.max(Math.min(due, current.end() - 1), current.start);
+            Bitmap bitmap = current.frames.get(frame - current.start);
+            if (bitmap != null) {
+                target.setImageBitmap(bitmap);
+                shownBitmap = bitmap;
+                target.setVisibility(View.VISIBLE);
+            }
+            shownFrame = frame;
+            if (listener != null) listener.onFramePresented(s.index.timeUs(frame));
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private final class Session implements Runnable {
+        final Context context;
+        final Uri uri;
+        final FrameIndex index;
+        final int end;
+        final int maxWidth, maxHeight;
+        final BlockingQueue<Segment> ready = new ArrayBlockingQueue<>(1);
+        volatile boolean cancelled;
+        volatile boolean ended;
+
+        Session(Context context, Uri uri, FrameIndex index, int end, int maxWidth, int maxHeight) {
+            this.context = context;
+            this.uri = uri;
+            this.index = index;
+            this.end = end;
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+        }
+
+        @Override
+        public void run() {
+            FrameDecoder decoder = null;
+            try {
+                decoder = new FrameDecoder(context, uri, index, maxWidth, maxHeight);
+                int maxFrames = FIRST_SEGMENT_FRAMES;
+                for (int e = end; e > 0 && !cancelled; ) {
+                    int start = index.segmentStart(e, maxFrames);
+                    List<Bitmap> frames = new ArrayList<>(e - start);
+                    for (int f = start; f < e && !cancelled; f += DECODE_CHUNK) {
+                        frames.addAll(decoder.decodeRange(f, Math.min(DECODE_CHUNK, e - f)));
+                    }
+                    Segment segment = new Segment(start, frames);
+                    Bitmap sample = segment.frames.isEmpty() ? null : segment.frames.get(segment.frames.size() - 1);
+                    if (sample != null) {
+                        maxFrames = Math.max(1, budgetBytes / 3 / sample.getAllocationByteCount());
+                    }
+                    while (!cancelled && !ready.offer(segment, POLL_MS, TimeUnit.MILLISECONDS)) {
+                        // the previous segment is still queued
+                    }
+                    if (cancelled) segment.recycle();
+                    e = start;
+                }
+            } catch (InterruptedException e) {
+                // shut down
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Reverse playback of " + uri + " failed", e);
+            } finally {
+                ended = true;
+                if (decoder != null) decoder.release();
+            }
+        }
+    }
+}
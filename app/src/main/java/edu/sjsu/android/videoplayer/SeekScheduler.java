@@ -0,0 +1,126 @@
+package edu.sjsu.android.videoplayer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SeekParameters;
+
+/**
+ * Single entry point for seeks. At most one seek is in flight; requests made meanwhile
+ * collapse into one pending target that is issued when the player renders the frame of
+ * the current seek. Seek latency is tracked so callers can pace repeated seeks.
+ * Main thread only.
+ */
+final class SeekScheduler {
+
+    interface Listener {
+        /** {@code latencyMs} is -1 if no frame was rendered before the timeout. */
+        void onSeekCompleted(long positionMs, long latencyMs);
+    }
+
+    // Give up waiting for a rendered frame (no video track, end of stream, ...)
+    private static final long SEEK_TIMEOUT_MS = 500;
+    private static final float LATENCY_SMOOTHING = 0.3f;
+
+    private final ExoPlayer player;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Player.Listener playerListener = new Player.Listener() {
+        @Override
+        public void onRenderedFirstFrame() {
+            complete(true);
+        }
+    };
+    private final Runnable timeoutRunnable = () -> complete(false);
+    private Listener listener;
+
+    private boolean inFlight;
+    // Sequence of the last seek issued, and of the last one the playback thread has handled
+    private int issuedSeq, handledSeq;
+    private long inFlightPositionMs;
+    private long requestedAtMs;
+    private boolean hasPending;
+    private long pendingPositionMs;
+    private boolean pendingExact;
+    private float latencyMs;
+
+    SeekScheduler(ExoPlayer player, long initialLatencyMs) {
+        this.player = player;
+        this.latencyMs = initialLatencyMs;
+        player.addListener(playerListener);
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Requests a seek. Exact seeks land on the requested frame; inexact ones snap to the
+     * nearest keyframe, which is much cheaper while scrubbing.
+     */
+    void seekTo(long positionMs, boolean exact) {
+        positionMs = Math.max(positionMs, 0);
+        if (inFlight) {
+            hasPending = true;
+            pendingPositionMs = positionMs;
+            pendingExact = exact;
+        } else {
+            issue(positionMs, exact);
+        }
+    }
+
+    /** Where the player will be once queued seeks are done. */
+    long targetPositionMs() {
+        if (hasPending) return pendingPositionMs;
+        return inFlight ? inFlightPositionMs : player.getCurrentPosition();
+    }
+
+    boolean isBusy() {
+        return inFlight;
+    }
+
+    /** Smoothed request-to-rendered-frame time of recent seeks. */
+    long expectedLatencyMs() {
+        return Math.round(latencyMs);
+    }
+
+    void cancelPending() {
+        hasPending = false;
+    }
+
+    void release() {
+        handler.removeCallbacks(timeoutRunnable);
+        player.removeListener(playerListener);
+        inFlight = false;
+        hasPending = false;
+    }
+
+    private void issue(long positionMs, boolean exact) {
+        player.setSeekParameters(exact ? SeekParameters.EXACT : SeekParameters.CLOSEST_SYNC);
+        player.seekTo(positionMs);
+        int seq = ++issuedSeq;
+        // Delivered on the playback thread right after the seek, so a late render of an older
+        // seek is always reported before this marker comes back
+        player.createMessage((type, payload) -> handler.post(() -> handledSeq = seq)).send();
+        inFlight = true;
+        inFlightPositionMs = positionMs;
+        requestedAtMs = SystemClock.uptimeMillis();
+        handler.removeCallbacks(timeoutRunnable);
+        handler.postDelayed(timeoutRunnable, SEEK_TIMEOUT_MS);
+    }
+
+    private void complete(boolean rendered) {
+        if (!inFlight || (rendered && handledSeq != issuedSeq)) return;
+        handler.removeCallbacks(timeoutRunnable);
+        inFlight = false;
+        long latency = SystemClock.uptimeMillis() - requestedAtMs;
+        if (rendered) latencyMs += LATENCY_SMOOTHING * (latency - latencyMs);
+        if (listener != null) listener.onSeekCompleted(inFlightPositionMs, rendered ? latency : -1);
+        if (hasPending) {
+            hasPending = false;
+            issue(pendingPositionMs, pendingExact);
+        }
+    }
+}
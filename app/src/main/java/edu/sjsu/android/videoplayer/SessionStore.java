@@ -0,0 +1,61 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Remembers the open video, where it was left and how it was being watched, so the next
+ * launch can prepare it before anything is picked. Kept in shared preferences; saving is
+ * applied in the background and never blocks the caller.
+ */
+final class SessionStore {
+
+    static final class Session {
+        final Uri uri;
+        final long positionMs;
+        final float speed;
+        final boolean editMode;
+
+        Session(Uri uri, long positionMs, float speed, boolean editMode) {
+            this.uri = uri;
+            this.positionMs = positionMs;
+            this.speed = speed;
+            this.editMode = editMode;
+        }
+    }
+
+    private static final String KEY_URI = "uri";
+    private static final String KEY_POSITION = "position_ms";
+    private static final String KEY_SPEED = "speed";
+    private static final String KEY_EDIT_MODE = "edit_mode";
+
+    private final SharedPreferences prefs;
+
+    SessionStore(Context context) {
+        prefs = context.getSharedPreferences("session", Context.MODE_PRIVATE);
+    }
+
+    void save(Session session) {
+        prefs.edit()
+                .putString(KEY_URI, session.uri.toString())
+                .putLong(KEY_POSITION, session.positionMs)
+                .putFloat(KEY_SPEED, session.speed)
+                .putBoolean(KEY_EDIT_MODE, session.editMode)
+                .apply();
+    }
+
+    @Nullable
+    Session load() {
+        String uri = prefs.getString(KEY_URI, null);
+        if (uri == null) return null;
+        return new Session(Uri.parse(uri), Math.max(0, prefs.getLong(KEY_POSITION, 0)),
+                prefs.getFloat(KEY_SPEED, 1f), prefs.getBoolean(KEY_EDIT_MODE, false));
+    }
+
+    void clear() {
+        prefs.edit().clear().apply();
+    }
+}
@@ -0,0 +1,134 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uniform hashed grid over axis-aligned bounds. Items are registered in every cell their
+ * bounds touch, so a point query only looks at the strokes near the touch. Cells live in an
+ * open-addressed table keyed by the packed cell coordinates, and a query marks items with a
+ * stamp instead of collecting them in a set, so queries allocate nothing. Cell lists are kept
+ * once created, even when empty. Not thread safe, and an item belongs to one grid at a time.
+ */
+final class SpatialGrid<T extends SpatialGrid.Entry> {
+
+    /** Base of anything stored in a grid; holds the stamp of the last query that returned it. */
+    abstract static class Entry {
+        int queryStamp;
+    }
+
+    private final float cellSize;
+    private long[] keys = new long[64];
+    private ArrayList<T>[] lists = newLists(64);
+    private int used;
+    private int stamp;
+
+    SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    void insert(T item, float left, float top, float right, float bottom) {
+        int x0 = cell(left), y0 = cell(top), x1 = cell(right), y1 = cell(bottom);
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                long key = key(cx, cy);
+                ArrayList<T> list = find(key);
+                if (list == null) list = add(key);
+                list.add(item);
+            }
+        }
+    }
+
+    void remove(T item, float left, float top, float right, float bottom) {
+        int x0 = cell(left), y0 = cell(top), x1 = cell(right), y1 = cell(bottom);
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                ArrayList<T> list = find(key(cx, cy));
+                if (list != null) list.remove(item);
+            }
+        }
+    }
+
+    /** Adds every item whose cells overlap the given rectangle to {@code out}, once each. */
+    void query(float left, float top, float right, float bottom, List<T> out) {
+        int x0 = cell(left), y0 = cell(top), x1 = cell(right), y1 = cell(bottom);
+        boolean single = x0 == x1 && y0 == y1;
+        // Zero is what new entries hold, so it is never a live stamp
+        if (++stamp == 0) stamp = 1;
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                ArrayList<T> list = find(key(cx, cy));
+                if (list == null) continue;
+                for (int i = 0; i < list.size(); i++) {
+                    T item = list.get(i);
+                    if (single) {
+                        out.add(item);
+                    } else if (item.queryStamp != stamp) {
+                        item.queryStamp = stamp;
+                        out.add(item);
+                    }
+                }
+            }
+        }
+    }
+
+    void clear() {
+        for (ArrayList<T> list : lists) {
+            if (list != null) list.clear();
+        }
+    }
+
+    private ArrayList<T> find(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); lists[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) return lists[i];
+        }
+        return null;
+    }
+
+    private ArrayList<T> add(long key) {
+        // At most half full, so probes stay short and always reach an empty slot
+        if (2 * (used + 1) > keys.length) grow();
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (lists[i] != null) i = (i + 1) & mask;
+        keys[i] = key;
+        ArrayList<T> list = new ArrayList<>(4);
+        lists[i] = list;
+        used++;
+        return list;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        ArrayList<T>[] oldLists = lists;
+        keys = new long[oldKeys.length * 2];
+        lists = newLists(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldLists[j] == null) continue;
+            int i = slot(oldKeys[j], mask);
+            while (lists[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            lists[i] = oldLists[j];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArrayList<T>[] newLists(int n) {
+        return (ArrayList<T>[]) new ArrayList[n];
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
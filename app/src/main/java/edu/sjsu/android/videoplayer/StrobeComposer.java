@@ -0,0 +1,136 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builds a stroboscopic picture from a run of ARGB frames: the static background is the
+ * per-pixel median of a bounded sample of the frames, and every frame then stamps the pixels
+ * that differ from that background on top, later frames over earlier ones.
+ * <p>
+ * Frames are fed one at a time in two passes ({@link #addBackgroundSample} for the sample,
+ * then {@link #addFrame} for all of them), so only the sample is ever held. Rows are processed
+ * in parallel on the given pool. Not thread safe.
+ */
+final class StrobeComposer {
+
+    static final int DEFAULT_BACKGROUND_SAMPLES = 9;
+    // Sum of absolute channel differences from the background that marks a foreground pixel
+    static final int DEFAULT_THRESHOLD = 60;
+
+    private final int width, height;
+    private final int threshold;
+    private final ForkJoinPool pool;
+    private final int[][] samples;
+    private int sampleCount;
+    private final int[] background;
+    private final int[] result;
+    private boolean backgroundReady;
+
+    StrobeComposer(int width, int height, int maxSamples, int threshold, ForkJoinPool pool) {
+        if (width <= 0 || height <= 0 || maxSamples <= 0) throw new IllegalArgumentException();
+        this.width = width;
+        this.height = height;
+        this.threshold = threshold;
+        this.pool = pool;
+        samples = new int[maxSamples][];
+        background = new int[width * height];
+        result = new int[width * height];
+    }
+
+    /**
+     * Which of {@code frames} evenly spaced frames to feed as background samples: all of them
+     * when there are at most {@code maxSamples}, otherwise an even spread.
+     */
+    static boolean[] sampleMask(int frames, int maxSamples) {
+        boolean[] mask = new boolean[frames];
+        if (frames <= maxSamples) {
+            java.util.Arrays.fill(mask, true);
+        } else {
+            for (int k = 0; k < maxSamples; k++) {
+                mask[(int) ((k + 0.5) * frames / maxSamples)] = true;
+            }
+        }
+        return mask;
+    }
+
+    void addBackgroundSample(int[] argb) {
+        checkSize(argb);
+        if (backgroundReady) throw new IllegalStateException("Background already computed");
+        if (sampleCount == samples.length) throw new IllegalStateException("Too many samples");
+        int[] copy = samples[sampleCount];
+        if (copy == null) copy = samples[sampleCount] = new int[width * height];
+        System.arraycopy(argb, 0, copy, 0, width * height);
+        sampleCount++;
+    }
+
+    /** Computes the median background from the samples and starts the composite from it. */
+    void finishBackground() {
+        if (sampleCount == 0) throw new IllegalStateException("No background samples");
+        int n = sampleCount;
+        ParallelRows.forEach(pool, height, 16, (from, to) -> {
+            int[] r = new int[n], g = new int[n], b = new int[n];
+            for (int i = from * width; i < to * width; i++) {
+                for (int k = 0; k < n; k++) {
+                    int c = samples[k][i];
+                    r[k] = (c >> 16) & 0xff;
+                    g[k] = (c >> 8) & 0xff;
+                    b[k] = c & 0xff;
+                }
+                background[i] = 0xff000000 | (median(r, n) << 16) | (median(g, n) << 8) | median(b, n);
+            }
+        });
+        System.arraycopy(background, 0, result, 0, background.length);
+        // The samples are no longer needed
+        for (int k = 0; k < samples.length; k++) samples[k] = null;
+        sampleCount = 0;
+        backgroundReady = true;
+    }
+
+    /** Stamps the foreground of the next frame, in time order, onto the composite. */
+    void addFrame(int[] argb) {
+        checkSize(argb);
+        if (!backgroundReady) throw new IllegalStateException("Background not computed");
+        ParallelRows.forEach(pool, height, 16, (from, to) -> {
+            for (int i = from * width; i < to * width; i++) {
+                int c = argb[i], bg = background[i];
+                int diff = Math.abs(((c >> 16) & 0xff) - ((bg >> 16) & 0xff))
+                        + Math.abs(((c >> 8) & 0xff) - ((bg >> 8) & 0xff))
+                        + Math.abs((c & 0xff) - (bg & 0xff));
+                if (diff > threshold) result[i] = c | 0xff000000;
+            }
+        });
+    }
+
+    int[] getBackground() {
+        return background;
+    }
+
+    int[] getResult() {
+        return result;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    // Insertion sort; n is a handful of samples
+    private static int median(int[] values, int n) {
+        for (int i = 1; i < n; i++) {
+            int v = values[i], j = i - 1;
+            while (j >= 0 && values[j] > v) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = v;
+        }
+        return (n & 1) == 1 ? values[n / 2] : (values[n / 2 - 1] + values[n / 2]) / 2;
+    }
+
+    private void checkSize(int[] pixels) {
+        if (pixels.length < width * height) throw new IllegalArgumentException("Buffer smaller than frame");
+    }
+}
@@ -0,0 +1,108 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a {@link StrobeComposer} over evenly spaced frames of a range in the background.
+ * Frames are decoded twice rather than kept: once for the background sample, once to stamp
+ * the foreground. A new request or {@link #cancel()} abandons the running one.
+ */
+final class StrobeGenerator {
+
+    interface Callback {
+        /** Main thread; {@code result} is null if the range could not be decoded. */
+        void onStrobeReady(Bitmap result, long startUs);
+    }
+
+    private static final String TAG = "StrobeGenerator";
+    private static final int MAX_EDGE = 1280;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+    }, "Strobe"));
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final AtomicInteger generation = new AtomicInteger();
+
+    void generate(Context context, Uri uri, FrameIndex index, int first, int last, int count, Callback callback) {
+        int gen = generation.incrementAndGet();
+        Context app = context.getApplicationContext();
+        int n = Math.max(2, Math.min(count, last - first + 1));
+        worker.execute(() -> {
+            Bitmap result = null;
+            FrameDecoder decoder = null;
+            try {
+                decoder = new FrameDecoder(app, uri, index, MAX_EDGE, MAX_EDGE);
+                result = compose(decoder, first, last, n, gen);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Strobe of " + uri + " failed", e);
+            } finally {
+                if (decoder != null) decoder.release();
+            }
+            Bitmap done = result;
+            main.post(() -> {
+                if (gen == generation.get()) callback.onStrobeReady(done, index.timeUs(first));
+            });
+        });
+    }
+
+    void cancel() {
+        generation.incrementAndGet();
+    }
+
+    void shutdown() {
+        cancel();
+        worker.shutdownNow();
+        pool.shutdown();
+    }
+
+    private Bitmap compose(FrameDecoder decoder, int first, int last, int n, int gen) {
+        int[] frames = new int[n];
+        for (int k = 0; k < n; k++) frames[k] = first + (int) Math.round((double) k * (last - first) / (n - 1));
+        boolean[] sampled = StrobeComposer.sampleMask(n, StrobeComposer.DEFAULT_BACKGROUND_SAMPLES);
+
+        StrobeComposer composer = null;
+        int[] pixels = null;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int k = 0; k < n; k++) {
+                if (gen != generation.get()) return null;
+                if (pass == 0 && !sampled[k]) continue;
+                Bitmap bitmap = decoder.decode(frames[k]);
+                if (bitmap == null) continue;
+                if (composer == null) {
+                    composer = new StrobeComposer(bitmap.getWidth(), bitmap.getHeight(),
+                            StrobeComposer.DEFAULT_BACKGROUND_SAMPLES, StrobeComposer.DEFAULT_THRESHOLD, pool);
+                    pixels = new int[bitmap.getWidth() * bitmap.getHeight()];
+                }
+                int w = composer.getWidth(), h = composer.getHeight();
+                if (bitmap.getWidth() != w || bitmap.getHeight() != h) {
+                    Bitmap scaled = Bitmap.createScaledBitmap(bitmap, w, h, true);
+                    bitmap.recycle();
+                    bitmap = scaled;
+                }
+                bitmap.getPixels(pixels, 0, w, 0, 0, w, h);
+                bitmap.recycle();
+                if (pass == 0) {
+                    composer.addBackgroundSample(pixels);
+                } else {
+                    composer.addFrame(pixels);
+                }
+            }
+            if (composer == null) return null;
+            if (pass == 0) composer.finishBackground();
+        }
+        return Bitmap.createBitmap(composer.getResult(), composer.getWidth(), composer.getHeight(), Bitmap.Config.ARGB_8888);
+    }
+}
@@ -0,0 +1,68 @@
+package edu.sjsu.android.videoplayer;
+
+/**
+ * A committed annotation. Geometry is a packed {@code x0, y0, x1, y1, ...} array: the
+ * polyline for free strokes, or start and end point for lines and circles (centre and a
+ * point on the outline). The stroke is shown while the playhead is in
+ * {@code [startUs, endUs)}. Immutable once built, apart from the stamp the spatial grid uses
+ * to de-duplicate query results.
+ */
+final class Stroke extends SpatialGrid.Entry {
+
+    final int id;
+    final DrawingView.Shape shape;
+    final StrokeStyle style;
+    final float[] points;
+    final float left, top, right, bottom;
+    final long startUs, endUs;
+
+    Stroke(int id, DrawingView.Shape shape, StrokeStyle style, float[] points, long startUs, long endUs) {
+        this.id = id;
+        this.shape = shape;
+        this.style = style;
+        this.points = points;
+        this.startUs = startUs;
+        this.endUs = endUs;
+
+        float l, t, r, b;
+        if (shape == DrawingView.Shape.CIRCLE) {
+            float radius = radius();
+            l = points[0] - radius; t = points[1] - radius;
+            r = points[0] + radius; b = points[1] + radius;
+        } else {
+            l = r = points[0];
+            t = b = points[1];
+            for (int i = 2; i + 1 < points.length; i += 2) {
+                l = Math.min(l, points[i]); r = Math.max(r, points[i]);
+                t = Math.min(t, points[i + 1]); b = Math.max(b, points[i + 1]);
+            }
+        }
+        float half = style.width / 2;
+        left = l - half; top = t - half; right = r + half; bottom = b + half;
+    }
+
+    boolean isActiveAt(long timeUs) {
+        return timeUs >= startUs && timeUs < endUs;
+    }
+
+    float radius() {
+        return (float) Math.hypot(points[2] - points[0], points[3] - points[1]);
+    }
+
+    boolean hitTest(float x, float y, float slop) {
+        float d;
+        if (shape == DrawingView.Shape.FREE) {
+            d = StrokeGeometry.distanceToPolyline(x, y, points, points.length);
+        } else if (shape == DrawingView.Shape.LINE) {
+            d = StrokeGeometry.distanceToSegment(x, y, points[0], points[1], points[2], points[3]);
+        } else {
+            d = StrokeGeometry.distanceToRing(x, y, points[0], points[1], radius());
+        }
+        return d <= style.width / 2 + slop;
+    }
+
+    /** Rough retained size, used for memory budgets. */
+    int sizeInBytes() {
+        return 64 + 16 + 4 * points.length;
+    }
+}
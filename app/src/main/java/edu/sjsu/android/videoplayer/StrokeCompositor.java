@@ -0,0 +1,56 @@
+package edu.sjsu.android.videoplayer;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.RectF;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Burns the annotations live at each frame's source time into it. Strokes are in view
+ * coordinates, so they are mapped onto the frame the way the player letterboxes the video.
+ */
+final class StrokeCompositor implements RenderPipeline.Compositor {
+
+    private static final Comparator<Stroke> BY_ID = (a, b) -> Integer.compare(a.id, b.id);
+
+    private final IntervalIndex<Stroke> timeline = new IntervalIndex<>();
+    private final List<Stroke> live = new ArrayList<>();
+    private final StrokePainter painter = new StrokePainter();
+    private final Matrix viewToFrame = new Matrix();
+    private final Bitmap bitmap;
+    private final Canvas canvas;
+    private final int width, height;
+
+    StrokeCompositor(List<Stroke> strokes, int viewWidth, int viewHeight, int frameWidth, int frameHeight) {
+        for (Stroke s : strokes) timeline.add(s, s.startUs, s.endUs);
+        width = frameWidth;
+        height = frameHeight;
+        float scale = Math.min((float) viewWidth / frameWidth, (float) viewHeight / frameHeight);
+        float left = (viewWidth - frameWidth * scale) / 2, top = (viewHeight - frameHeight * scale) / 2;
+        viewToFrame.setRectToRect(new RectF(left, top, left + frameWidth * scale, top + frameHeight * scale),
+                new RectF(0, 0, frameWidth, frameHeight), Matrix.ScaleToFit.FILL);
+        bitmap = Bitmap.createBitmap(frameWidth, frameHeight, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(bitmap);
+        canvas.setMatrix(viewToFrame);
+    }
+
+    @Override
+    public void composite(RenderPipeline.Frame frame) {
+        live.clear();
+        timeline.query(frame.sourceUs, live);
+        if (live.isEmpty()) return;
+        Collections.sort(live, BY_ID);
+        bitmap.setPixels(frame.pixels, 0, width, 0, 0, width, height);
+        for (int i = 0; i < live.size(); i++) painter.draw(canvas, live.get(i));
+        bitmap.getPixels(frame.pixels, 0, width, 0, 0, width, height);
+    }
+
+    void release() {
+        bitmap.recycle();
+    }
+}
@@ -0,0 +1,32 @@
+package edu.sjsu.android.videoplayer;
+
+/** Distance functions used for hit testing strokes against their drawn geometry. */
+final class StrokeGeometry {
+
+    private StrokeGeometry() {}
+
+    static float distanceToSegment(float px, float py, float ax, float ay, float bx, float by) {
+        float dx = bx - ax, dy = by - ay;
+        float lenSq = dx * dx + dy * dy;
+        float t = lenSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lenSq;
+        t = Math.max(0, Math.min(1, t));
+        float cx = ax + t * dx - px, cy = ay + t * dy - py;
+        return (float) Math.sqrt(cx * cx + cy * cy);
+    }
+
+    /** Distance to a polyline stored as {@code x0, y0, x1, y1, ...} in the first {@code count} floats. */
+    static float distanceToPolyline(float px, float py, float[] points, int count) {
+        if (count < 2) return Float.MAX_VALUE;
+        if (count < 4) return distanceToSegment(px, py, points[0], points[1], points[0], points[1]);
+        float best = Float.MAX_VALUE;
+        for (int i = 0; i + 3 < count; i += 2) {
+            best = Math.min(best, distanceToSegment(px, py, points[i], points[i + 1], points[i + 2], points[i + 3]));
+        }
+        return best;
+    }
+
+    /** Distance to the outline of a circle, not its filled disc. */
+    static float distanceToRing(float px, float py, float cx, float cy, float radius) {
+        return Math.abs((float) Math.hypot(px - cx, py - cy) - radius);
+    }
+}
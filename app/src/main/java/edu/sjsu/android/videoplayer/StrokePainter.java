@@ -0,0 +1,51 @@
+package edu.sjsu.android.videoplayer;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Draws strokes with one cached {@code Paint} per interned style. Not thread safe. */
+final class StrokePainter {
+
+    // Indexed by StrokeStyle.id
+    private final List<Paint> paints = new ArrayList<>();
+    private final Path path = new Path();
+
+    Paint paintFor(StrokeStyle s) {
+        while (paints.size() <= s.id) paints.add(null);
+        Paint p = paints.get(s.id);
+        if (p == null) {
+            p = new Paint();
+            p.setColor(s.color);
+            p.setAntiAlias(true);
+            p.setStyle(Paint.Style.STROKE);
+            p.setStrokeWidth(s.width);
+            p.setStrokeJoin(Paint.Join.ROUND);
+            p.setStrokeCap(Paint.Cap.ROUND);
+            paints.set(s.id, p);
+        }
+        return p;
+    }
+
+    void draw(Canvas canvas, Stroke s) {
+        Paint p = paintFor(s.style);
+        float[] pts = s.points;
+        if (s.shape == DrawingView.Shape.FREE) {
+            // Quadratics through the midpoints, matching the live ink in DrawingView
+            path.rewind();
+            path.moveTo(pts[0], pts[1]);
+            for (int i = 2; i + 1 < pts.length; i += 2) {
+                path.quadTo(pts[i - 2], pts[i - 1], (pts[i - 2] + pts[i]) / 2, (pts[i - 1] + pts[i + 1]) / 2);
+            }
+            path.lineTo(pts[pts.length - 2], pts[pts.length - 1]);
+            canvas.drawPath(path, p);
+        } else if (s.shape == DrawingView.Shape.LINE) {
+            canvas.drawLine(pts[0], pts[1], pts[2], pts[3], p);
+        } else if (s.shape == DrawingView.Shape.CIRCLE) {
+            canvas.drawCircle(pts[0], pts[1], s.radius(), p);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Interned colour and width pair shared by every stroke drawn with it. Each distinct style
+ * gets a small dense id that views use to look up their {@code Paint}.
+ */
+final class StrokeStyle {
+
+    private static final HashMap<Long, StrokeStyle> interned = new HashMap<>();
+    private static final List<StrokeStyle> byId = new ArrayList<>();
+
+    final int color;
+    final float width;
+    final int id;
+
+    private StrokeStyle(int color, float width, int id) {
+        this.color = color;
+        this.width = width;
+        this.id = id;
+    }
+
+    static synchronized StrokeStyle of(int color, float width) {
+        long key = ((long) color << 32) | (Float.floatToIntBits(width) & 0xffffffffL);
+        StrokeStyle style = interned.get(key);
+        if (style == null) {
+            style = new StrokeStyle(color, width, byId.size());
+            interned.put(key, style);
+            byId.add(style);
+        }
+        return style;
+    }
+
+    static synchronized StrokeStyle byId(int id) {
+        return byId.get(id);
+    }
+}
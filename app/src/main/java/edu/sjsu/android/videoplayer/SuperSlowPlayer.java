@@ -0,0 +1,261 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.ImageView;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a clip slower than the player can without holding frames, by synthesising the frames
+ * in between. A worker decodes source frames ahead of the playhead, interpolates the frames
+ * due at the output rate and queues them; a Choreographer callback presents them on an
+ * {@link ImageView} at that rate. Control methods are main thread only.
+ */
+final class SuperSlowPlayer implements Choreographer.FrameCallback {
+
+    interface Listener {
+        void onFramePresented(long timeUs);
+
+        void onEnded();
+    }
+
+    /** Speeds below this are played here rather than by the player. */
+    static final float MAX_SPEED = 0.25f;
+
+    private static final String TAG = "SuperSlowPlayer";
+    private static final long OUTPUT_INTERVAL_US = 33_333;
+    // Present slightly early rather than skip a whole vsync when the callback lands just short
+    private static final long PRESENT_SLACK_NS = 4_000_000;
+    private static final int QUEUE_DEPTH = 4;
+    // Queued frames plus the one on screen and the one the render thread may still be drawing
+    private static final int POOL_SIZE = QUEUE_DEPTH + 2;
+    private static final int SOURCE_CHUNK = 8;
+    private static final int MAX_WIDTH = 640, MAX_HEIGHT = 640;
+    private static final long POLL_MS = 50;
+
+    private static final class OutFrame {
+        final Bitmap bitmap;
+        final int[] pixels;
+        long timeUs;
+
+        OutFrame(int width, int height) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            pixels = new int[width * height];
+        }
+    }
+
+    private final ImageView target;
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+        r.run();
+    }, "SuperSlow"));
+    private Listener listener;
+    private Histogram interpolateTimes;
+
+    private volatile float speed = MAX_SPEED;
+    private Session session;
+    private OutFrame shown, previous;
+    private long lastPresentNs;
+    private long positionUs = -1;
+
+    SuperSlowPlayer(ImageView target) {
+        this.target = target;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void setInterpolateTimeHistogram(Histogram histogram) {
+        interpolateTimes = histogram;
+    }
+
+    boolean isRunning() {
+        return session != null;
+    }
+
+    void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    void start(Context context, Uri uri, FrameIndex index, long startUs) {
+        stop();
+        session = new Session(context.getApplicationContext(), uri, index, startUs);
+        positionUs = startUs;
+        lastPresentNs = 0;
+        worker.execute(session);
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /** Stops presenting and returns the time of the last frame shown, or -1 if none was. */
+    long stop() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (session == null) return -1;
+        session.cancelled = true;
+        session = null;
+        shown = previous = null;
+        return positionUs;
+    }
+
+    void release() {
+        stop();
+        worker.shutdownNow();
+        pool.shutdown();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        Session s = session;
+        if (s == null) return;
+        if (frameTimeNanos - lastPresentNs >= OUTPUT_INTERVAL_US * 1000 - PRESENT_SLACK_NS) {
+            OutFrame next = s.ready.poll();
+            if (next != null) {
+                present(s, next, frameTimeNanos);
+            } else if (s.ended) {
+                stop();
+                if (listener != null) listener.onEnded();
+                return;
+            }
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void present(Session s, OutFrame frame, long frameTimeNanos) {
+        target.setImageBitmap(frame.bitmap);
+        target.setVisibility(View.VISIBLE);
+        if (previous != null) s.free.offer(previous);
+        previous = shown;
+        shown = frame;
+        lastPresentNs = frameTimeNanos;
+        positionUs = frame.timeUs;
+        if (listener != null) listener.onFramePresented(frame.timeUs);
+    }
+
+    private final class Session implements Runnable {
+        final Context context;
+        final Uri uri;
+        final FrameIndex index;
+        final long startUs;
+        final BlockingQueue<OutFrame> ready = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        final BlockingQueue<OutFrame> free = new ArrayBlockingQueue<>(POOL_SIZE);
+        volatile boolean cancelled;
+        volatile boolean ended;
+
+        private FrameDecoder decoder;
+        private List<Bitmap> chunk;
+        private int chunkStart;
+
+        Session(Context context, Uri uri, FrameIndex index, long startUs) {
+            this.context = context;
+            this.uri = uri;
+            this.index = index;
+            this.startUs = startUs;
+        }
+
+        @Override
+        public void run() {
+            try {
+                decoder = new FrameDecoder(context, uri, index, MAX_WIDTH, MAX_HEIGHT);
+                produce();
+            } catch (InterruptedException e) {
+                // shut down
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Interpolated playback of " + uri + " failed", e);
+            } finally {
+                ended = true;
+                dropChunk();
+                if (decoder != null) decoder.release();
+            }
+        }
+
+        private void produce() throws InterruptedException {
+            int pair = -1;
+            int[] a = null, b = null;
+            FrameInterpolator interpolator = null;
+            long t = startUs;
+            while (!cancelled) {
+                int i = Math.max(0, index.frameAt(t));
+                if (i >= index.size() - 1) return;
+                if (i != pair) {
+                    if (interpolator == null) {
+                        Bitmap first = source(i);
+                        if (first == null) return;
+                        interpolator = new FrameInterpolator(first.getWidth(), first.getHeight(), pool);
+                        a = new int[first.getWidth() * first.getHeight()];
+                        b = new int[a.length];
+                        for (int k = 0; k < POOL_SIZE; k++) free.add(new OutFrame(first.getWidth(), first.getHeight()));
+                    }
+                    if (i == pair + 1) {
+                        int[] swap = a;
+                        a = b;
+                        b = swap;
+                    } else if (!load(i, a, interpolator)) {
+                        return;
+                    }
+                    if (!load(i + 1, b, interpolator)) return;
+                    interpolator.estimate(a, b);
+                    pair = i;
+                }
+                OutFrame out = null;
+                while (out == null && !cancelled) out = free.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (out == null) return;
+
+                long begin = SystemClock.elapsedRealtimeNanos();
+                long t0 = index.timeUs(i), t1 = index.timeUs(i + 1);
+                interpolator.interpolate(a, b, t1 > t0 ? (float) (t - t0) / (t1 - t0) : 0f, out.pixels);
+                out.bitmap.setPixels(out.pixels, 0, interpolator.getWidth(), 0, 0,
+                        interpolator.getWidth(), interpolator.getHeight());
+                if (interpolateTimes != null) interpolateTimes.record((SystemClock.elapsedRealtimeNanos() - begin) / 1000);
+                out.timeUs = t;
+
+                while (!cancelled && !ready.offer(out, POLL_MS, TimeUnit.MILLISECONDS)) {
+                    // display is behind; wait for room
+                }
+                t += Math.max(1, Math.round(OUTPUT_INTERVAL_US * speed));
+            }
+        }
+
+        private boolean load(int frame, int[] pixels, FrameInterpolator interpolator) {
+            Bitmap bitmap = source(frame);
+            if (bitmap == null) return false;
+            int w = interpolator.getWidth(), h = interpolator.getHeight();
+            if (bitmap.getWidth() != w || bitmap.getHeight() != h) {
+                bitmap = Bitmap.createScaledBitmap(bitmap, w, h, true);
+            }
+            bitmap.getPixels(pixels, 0, w, 0, 0, w, h);
+            return true;
+        }
+
+        // Source frames are decoded a chunk at a time so each GOP is walked once
+        private Bitmap source(int frame) {
+            if (chunk == null || frame < chunkStart || frame >= chunkStart + chunk.size()) {
+                dropChunk();
+                chunkStart = frame;
+                chunk = decoder.decodeRange(frame, Math.min(SOURCE_CHUNK, index.size() - frame));
+            }
+            return frame - chunkStart < chunk.size() ? chunk.get(frame - chunkStart) : null;
+        }
+
+        private void dropChunk() {
+            if (chunk == null) return;
+            for (Bitmap bitmap : chunk) {
+                if (bitmap != null) bitmap.recycle();
+            }
+            chunk = null;
+        }
+    }
+}
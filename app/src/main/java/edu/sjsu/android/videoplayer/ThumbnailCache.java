@@ -0,0 +1,218 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small frames of the open clip for the filmstrip and scrub preview, keyed by presentation
+ * time. Extracted in {@link ThumbnailSchedule} order by a private retriever on a background
+ * thread, so the player's decoder is never involved, and kept both in a memory LRU and as
+ * JPEGs under {@code cache/thumbnails/<uri hash>} for later sessions.
+ */
+final class ThumbnailCache {
+
+    interface Listener {
+        /** Main thread; more thumbnails are available in memory. */
+        void onThumbnailsChanged();
+    }
+
+    private static final String TAG = "ThumbnailCache";
+    static final int SLOTS = 96;
+    private static final int THUMB_HEIGHT = 90;
+    private static final int JPEG_QUALITY = 80;
+    private static final long NOTIFY_DELAY_MS = 100;
+
+    private final File root;
+    private final Context context;
+    private final LruCache<Long, Bitmap> memory;
+    private final ExecutorService extractor = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+    }, "Thumbnails"));
+    private final ExecutorService disk = Executors.newSingleThreadExecutor();
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final AtomicInteger generation = new AtomicInteger();
+    // Times with a thumbnail in memory or on disk, and disk reads already queued
+    private final ConcurrentSkipListSet<Long> available = new ConcurrentSkipListSet<>();
+    private final Set<Long> loading = ConcurrentHashMap.newKeySet();
+    private boolean notifyPending;
+    private Listener listener;
+    private final Runnable notifyRunnable = () -> {
+        notifyPending = false;
+        if (listener != null) listener.onThumbnailsChanged();
+    };
+    private volatile File dir;
+
+    ThumbnailCache(Context context, int memoryBudgetBytes) {
+        this.context = context.getApplicationContext();
+        root = new File(context.getCacheDir(), "thumbnails");
+        memory = new LruCache<Long, Bitmap>(memoryBudgetBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+        };
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Switches to {@code uri}: lists what earlier sessions left on disk and extracts the rest. */
+    void open(Uri uri, FrameIndex index) {
+        close();
+        int gen = generation.get();
+        File target = new File(root, CacheKeys.of(uri.toString()));
+        dir = target;
+        extractor.execute(() -> {
+            if (gen != generation.get()) return;
+            String[] names = target.list();
+            if (names != null) {
+                for (String name : names) {
+                    if (!name.endsWith(".jpg")) continue;
+                    try {
+                        available.add(Long.parseLong(name.substring(0, name.length() - 4)));
+                    } catch (NumberFormatException ignored) {
+                        // not ours
+                    }
+                }
+                postChanged();
+            }
+            extract(uri, index, target, gen);
+        });
+    }
+
+    void close() {
+        generation.incrementAndGet();
+        dir = null;
+        available.clear();
+        loading.clear();
+        memory.evictAll();
+    }
+
+    boolean isEmpty() {
+        return available.isEmpty();
+    }
+
+    /**
+     * Thumbnail closest to {@code timeUs}, from memory only. If the closest one is on disk it is
+     * loaded in the background and the listener fires; meanwhile null is returned.
+     */
+    Bitmap getNearest(long timeUs) {
+        Long key = nearest(timeUs);
+        if (key == null) return null;
+        Bitmap bitmap = memory.get(key);
+        if (bitmap == null) loadFromDisk(key);
+        return bitmap;
+    }
+
+    void shutdown() {
+        close();
+        extractor.shutdownNow();
+        disk.shutdown();
+    }
+
+    private Long nearest(long timeUs) {
+        Long below = available.floor(timeUs), above = available.ceiling(timeUs);
+        if (below == null) return above;
+        if (above == null) return below;
+        return timeUs - below <= above - timeUs ? below : above;
+    }
+
+    private void loadFromDisk(long key) {
+        File d = dir;
+        if (d == null || !loading.add(key)) return;
+        int gen = generation.get();
+        disk.execute(() -> {
+            if (gen != generation.get()) return;
+            Bitmap bitmap = BitmapFactory.decodeFile(new File(d, key + ".jpg").getPath());
+            if (bitmap != null && gen == generation.get()) {
+                memory.put(key, bitmap);
+                postChanged();
+            }
+            loading.remove(key);
+        });
+    }
+
+    private void extract(Uri uri, FrameIndex index, File target, int gen) {
+        long[] times = ThumbnailSchedule.build(index, SLOTS);
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(context, uri);
+            if (!target.isDirectory() && !target.mkdirs()) Log.w(TAG, "Cannot create " + target);
+            for (long timeUs : times) {
+                if (gen != generation.get()) return;
+                if (available.contains(timeUs)) continue;
+                // Keyframes decode on their own; refinements need the exact frame
+                int option = index.isKeyFrame(Math.max(0, index.frameAt(timeUs)))
+                        ? MediaMetadataRetriever.OPTION_CLOSEST_SYNC : MediaMetadataRetriever.OPTION_CLOSEST;
+                Bitmap thumb = grab(retriever, timeUs, option);
+                if (thumb == null || gen != generation.get()) continue;
+                memory.put(timeUs, thumb);
+                available.add(timeUs);
+                postChanged();
+                write(new File(target, timeUs + ".jpg"), thumb);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Thumbnail extraction for " + uri + " stopped", e);
+        } finally {
+            try {
+                retriever.release();
+            } catch (Exception ignored) {
+                // release() declares IOException on newer platforms
+            }
+        }
+    }
+
+    private static Bitmap grab(MediaMetadataRetriever retriever, long timeUs, int option) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            // Scaled inside the retriever; the width bound keeps the aspect ratio
+            return retriever.getScaledFrameAtTime(timeUs, option, THUMB_HEIGHT * 4, THUMB_HEIGHT);
+        }
+        Bitmap full = retriever.getFrameAtTime(timeUs, option);
+        if (full == null) return null;
+        int width = Math.max(1, full.getWidth() * THUMB_HEIGHT / Math.max(1, full.getHeight()));
+        Bitmap scaled = Bitmap.createScaledBitmap(full, width, THUMB_HEIGHT, true);
+        if (scaled != full) full.recycle();
+        return scaled;
+    }
+
+    private static void write(File file, Bitmap bitmap) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write " + file, e);
+            return;
+        }
+        if (!tmp.renameTo(file)) tmp.delete();
+    }
+
+    // Coalesces bursts of new thumbnails into one redraw
+    private void postChanged() {
+        main.post(() -> {
+            if (notifyPending) return;
+            notifyPending = true;
+            main.postDelayed(notifyRunnable, NOTIFY_DELAY_MS);
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package edu.sjsu.android.videoplayer;
+
+import java.util.Arrays;
+
+/**
+ * Order in which filmstrip thumbnails are extracted. The clip is split into evenly spaced
+ * slots; the first pass takes the keyframe nearest each slot, which decodes without touching
+ * other frames, and a second pass refines slots whose keyframe is far from the slot centre.
+ * Slots are visited coarse to fine so a partial strip is spread over the whole clip.
+ */
+final class ThumbnailSchedule {
+
+    private ThumbnailSchedule() {}
+
+    /** Presentation times to extract, in order, without duplicates. */
+    static long[] build(FrameIndex index, int slots) {
+        if (index.size() == 0 || slots <= 0) return new long[0];
+        long startUs = index.timeUs(0);
+        long spanUs = Math.max(1, index.timeUs(index.size() - 1) - startUs);
+        long toleranceUs = spanUs / slots / 4;
+        int[] order = coarseToFine(slots);
+
+        long[] out = new long[2 * slots];
+        int n = 0;
+        int[] exact = new int[slots];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int slot : order) {
+                long centreUs = startUs + (long) ((slot + 0.5) * spanUs / slots);
+                int frame = Math.max(0, index.frameAt(centreUs));
+                long timeUs;
+                if (pass == 0) {
+                    int key = nearestKeyFrame(index, frame, centreUs);
+                    timeUs = index.timeUs(key);
+                    exact[slot] = Math.abs(timeUs - centreUs) > toleranceUs ? frame : -1;
+                } else {
+                    if (exact[slot] < 0) continue;
+                    timeUs = index.timeUs(exact[slot]);
+                }
+                if (!contains(out, n, timeUs)) out[n++] = timeUs;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int nearestKeyFrame(FrameIndex index, int frame, long timeUs) {
+        int before = index.keyFrameAtOrBefore(frame);
+        int after = index.nextKeyFrame(frame);
+        if (after >= index.size()) return before;
+        return timeUs - index.timeUs(before) <= index.timeUs(after) - timeUs ? before : after;
+    }
+
+    // 0, n/2, n/4, 3n/4, ... for a power of two n, and the analogous order otherwise
+    static int[] coarseToFine(int n) {
+        int[] order = new int[n];
+        boolean[] seen = new boolean[n];
+        int k = 0;
+        for (int step = Integer.highestOneBit(Math.max(1, n)); step >= 1; step >>= 1) {
+            for (int i = 0; i < n; i += step) {
+                if (!seen[i]) {
+                    seen[i] = true;
+                    order[k++] = i;
+                }
+            }
+        }
+        return order;
+    }
+
+    private static boolean contains(long[] values, int count, long value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package edu.sjsu.android.videoplayer;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+/**
+ * Holds the video, the frame overlay and the annotations, and applies one pinch-zoom and pan
+ * transform to all of them through view properties: a zoom change only moves the composited
+ * layers, nothing is decoded or rasterized again. The framework maps touches back through
+ * the transform, so children keep working in their own unzoomed coordinates. Gestures with
+ * two or more fingers are taken over here; single touches reach the children as before.
+ */
+public class ZoomLayout extends FrameLayout {
+
+    interface OnZoomChangedListener {
+        void onZoomChanged(float scale);
+    }
+
+    private static final float MAX_SCALE = 8f;
+
+    private final ZoomTransform zoom = new ZoomTransform(MAX_SCALE);
+    private OnZoomChangedListener listener;
+    private boolean gesturing;
+    private int gesturePointers;
+    private float lastFocusX, lastFocusY, lastSpan;
+
+    public ZoomLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    void setOnZoomChangedListener(OnZoomChangedListener listener) {
+        this.listener = listener;
+    }
+
+    float getZoom() {
+        return zoom.getScale();
+    }
+
+    boolean isZoomed() {
+        return !zoom.isIdentity();
+    }
+
+    void resetZoom() {
+        zoom.reset();
+        applyTransform();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        zoom.setViewport(w, h);
+        applyTransform();
+    }
+
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        child.setPivotX(0);
+        child.setPivotY(0);
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent e) {
+        // Taking the gesture sends the child an ACTION_CANCEL, which drops any live stroke
+        if (e.getPointerCount() >= 2) {
+            beginGesture(e);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent e) {
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Nothing below wanted this touch; keep the stream in case a second finger follows
+                gesturing = false;
+                return true;
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_POINTER_UP:
+                beginGesture(e);
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (!gesturing) return true;
+                if (e.getPointerCount() != gesturePointers) {
+                    beginGesture(e);
+                    return true;
+                }
+                float fx = focus(e, true), fy = focus(e, false);
+                float span = span(e, fx, fy);
+                if (lastSpan > 0 && span > 0) zoom.zoomBy(span / lastSpan, fx, fy);
+                zoom.panBy(fx - lastFocusX, fy - lastFocusY);
+                lastFocusX = fx;
+                lastFocusY = fy;
+                lastSpan = span;
+                applyTransform();
+                return true;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                gesturing = false;
+                return true;
+            default:
+                return gesturing;
+        }
+    }
+
+    // Restarts the reference focus and span whenever the set of pointers changes
+    private void beginGesture(MotionEvent e) {
+        int skip = e.getActionMasked() == MotionEvent.ACTION_POINTER_UP ? e.getActionIndex() : -1;
+        int n = 0;
+        float sx = 0, sy = 0;
+        for (int i = 0; i < e.getPointerCount(); i++) {
+            if (i == skip) continue;
+            sx += e.getX(i);
+            sy += e.getY(i);
+            n++;
+        }
+        gesturing = n > 0;
+        gesturePointers = n;
+        if (n == 0) return;
+        lastFocusX = sx / n;
+        lastFocusY = sy / n;
+        float d = 0;
+        for (int i = 0; i < e.getPointerCount(); i++) {
+            if (i != skip) d += (float) Math.hypot(e.getX(i) - lastFocusX, e.getY(i) - lastFocusY);
+        }
+        lastSpan = n >= 2 ? d / n : 0;
+    }
+
+    private static float focus(MotionEvent e, boolean x) {
+        float sum = 0;
+        for (int i = 0; i < e.getPointerCount(); i++) sum += x ? e.getX(i) : e.getY(i);
+        return sum / e.getPointerCount();
+    }
+
+    private static float span(MotionEvent e, float fx, float fy) {
+        if (e.getPointerCount() < 2) return 0;
+        float d = 0;
+        for (int i = 0; i < e.getPointerCount(); i++) d += (float) Math.hypot(e.getX(i) - fx, e.getY(i) - fy);
+        return d / e.getPointerCount();
+    }
+
+    // Children are laid out at their own offsets, so each gets the shared transform re-based on it
+    private void applyTransform() {
+        float s = zoom.getScale();
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            child.setScaleX(s);
+            child.setScaleY(s);
+            child.setTranslationX(zoom.getTranslationX() + child.getLeft() * (s - 1));
+            child.setTranslationY(zoom.getTranslationY() + child.getTop() * (s - 1));
+        }
+        if (listener != null) listener.onZoomChanged(s);
+    }
+}
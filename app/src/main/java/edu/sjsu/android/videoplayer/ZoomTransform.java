@@ -0,0 +1,83 @@
+package edu.sjsu.android.videoplayer;
+
+/**
+ * Uniform scale plus translation mapping content coordinates (the unzoomed view) to the
+ * screen: {@code screen = content * scale + translation}. Scale stays within
+ * {@code [1, maxScale]} and the translation is clamped so the content always covers the
+ * viewport, which also makes zooming back to 1 land exactly on the identity.
+ */
+final class ZoomTransform {
+
+    // Scales this close to 1 snap to it, so rounding cannot leave a residual zoom
+    private static final float SNAP = 1e-3f;
+
+    private final float maxScale;
+    private float scale = 1f, tx, ty;
+    private int width, height;
+
+    ZoomTransform(float maxScale) {
+        if (maxScale < 1f) throw new IllegalArgumentException();
+        this.maxScale = maxScale;
+    }
+
+    void setViewport(int width, int height) {
+        this.width = width;
+        this.height = height;
+        clamp();
+    }
+
+    float getScale() {
+        return scale;
+    }
+
+    float getTranslationX() {
+        return tx;
+    }
+
+    float getTranslationY() {
+        return ty;
+    }
+
+    boolean isIdentity() {
+        return scale == 1f && tx == 0 && ty == 0;
+    }
+
+    void reset() {
+        scale = 1f;
+        tx = ty = 0;
+    }
+
+    /** Scales by {@code factor} keeping the content under the screen point (fx, fy) in place. */
+    void zoomBy(float factor, float fx, float fy) {
+        float next = Math.max(1f, Math.min(maxScale, scale * factor));
+        if (next < 1f + SNAP) next = 1f;
+        float applied = next / scale;
+        tx = fx - (fx - tx) * applied;
+        ty = fy - (fy - ty) * applied;
+        scale = next;
+        clamp();
+    }
+
+    void panBy(float dx, float dy) {
+        tx += dx;
+        ty += dy;
+        clamp();
+    }
+
+    float toContentX(float screenX) {
+        return (screenX - tx) / scale;
+    }
+
+    float toContentY(float screenY) {
+        return (screenY - ty) / scale;
+    }
+
+    private void clamp() {
+        if (scale == 1f) {
+            tx = ty = 0;
+            return;
+        }
+        tx = Math.max(width - width * scale, Math.min(0, tx));
+        ty = Math.max(height - height * scale, Math.min(0, ty));
+    }
+}
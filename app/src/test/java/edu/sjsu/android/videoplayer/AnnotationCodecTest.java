@@ -0,0 +1,223 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AnnotationCodecTest {
+
+    private static final float PRECISION = 1f / 16;
+
+    private static Stroke freeStroke(int id, int points, Random random) {
+        float[] pts = new float[points * 2];
+        float x = 500, y = 500;
+        for (int i = 0; i < pts.length; i += 2) {
+            x += random.nextFloat() * 6 - 3;
+            y += random.nextFloat() * 6 - 3;
+            pts[i] = x;
+            pts[i + 1] = y;
+        }
+        return new Stroke(id, DrawingView.Shape.FREE, StrokeStyle.of(0xffff0000, 7.5f), pts, 1_000_000L * id, 1_000_000L * id + 750_000);
+    }
+
+    private static void assertSameStroke(Stroke expected, Stroke actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.shape, actual.shape);
+        assertSame(expected.style, actual.style);
+        assertEquals(expected.startUs, actual.startUs);
+        assertEquals(expected.endUs, actual.endUs);
+        assertArrayEquals(expected.points, actual.points, PRECISION);
+    }
+
+    @Test
+    public void roundTripsAJournal() throws IOException {
+        Random random = new Random(1);
+        Stroke a = freeStroke(0, 300, random);
+        Stroke b = new Stroke(1, DrawingView.Shape.CIRCLE, StrokeStyle.of(0xff00ff00, 3f),
+                new float[]{-20.25f, 40.5f, 100f, 1e4f}, Long.MIN_VALUE, Long.MAX_VALUE);
+        Stroke c = new Stroke(2, DrawingView.Shape.LINE, StrokeStyle.of(0xff0000ff, 12f),
+                new float[]{0, 0, 1919.875f, 1079.5f}, -5_000, 9_000);
+        Stroke d = freeStroke(3, 2, random);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnnotationCodec.writeHeader(out);
+        AnnotationCodec.writeAdd(out, a);
+        AnnotationCodec.writeAdd(out, b);
+        AnnotationCodec.writeErase(out, 0);
+        AnnotationCodec.writeAdd(out, c);
+        AnnotationCodec.writeAdd(out, d);
+
+        AnnotationCodec.Journal journal = AnnotationCodec.read(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(5, journal.records);
+        assertEquals(3, journal.strokes.size());
+        assertSameStroke(b, journal.strokes.get(0));
+        assertSameStroke(c, journal.strokes.get(1));
+        assertSameStroke(d, journal.strokes.get(2));
+    }
+
+    @Test
+    public void clearDropsEarlierStrokes() throws IOException {
+        Random random = new Random(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnnotationCodec.writeHeader(out);
+        AnnotationCodec.writeAdd(out, freeStroke(0, 10, random));
+        AnnotationCodec.writeClear(out);
+        Stroke kept = freeStroke(1, 10, random);
+        AnnotationCodec.writeAdd(out, kept);
+
+        AnnotationCodec.Journal journal = AnnotationCodec.read(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(1, journal.strokes.size());
+        assertSameStroke(kept, journal.strokes.get(0));
+    }
+
+    @Test
+    public void snapshotMatchesJournal() throws IOException {
+        Random random = new Random(3);
+        List<Stroke> strokes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) strokes.add(freeStroke(i, 100, random));
+
+        AnnotationCodec.Journal journal = AnnotationCodec.read(ByteBuffer.wrap(AnnotationCodec.snapshot(strokes)));
+        assertEquals(50, journal.strokes.size());
+        for (int i = 0; i < strokes.size(); i++) {
+            assertSameStroke(strokes.get(i), journal.strokes.get(i));
+        }
+    }
+
+    @Test
+    public void pointStreamIsCompact() {
+        Stroke s = freeStroke(0, 1000, new Random(4));
+        byte[] bytes = AnnotationCodec.snapshot(Arrays.asList(s));
+        // Raw floats would take 8000 bytes
+        assertTrue("size " + bytes.length, bytes.length < 4200);
+    }
+
+    @Test
+    public void ignoresTornTail() throws IOException {
+        Random random = new Random(5);
+        Stroke first = freeStroke(0, 50, random);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnnotationCodec.writeHeader(out);
+        AnnotationCodec.writeAdd(out, first);
+        AnnotationCodec.writeAdd(out, freeStroke(1, 50, random));
+        byte[] bytes = out.toByteArray();
+
+        AnnotationCodec.Journal journal = AnnotationCodec.read(ByteBuffer.wrap(bytes, 0, bytes.length - 3));
+        assertEquals(1, journal.strokes.size());
+        assertSameStroke(first, journal.strokes.get(0));
+    }
+
+    @Test
+    public void appendAfterTornTailKeepsEarlierStrokes() throws IOException {
+        Random random = new Random(6);
+        Stroke first = freeStroke(0, 50, random);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnnotationCodec.writeHeader(out);
+        AnnotationCodec.writeAdd(out, first);
+        int intact = out.size();
+        AnnotationCodec.writeAdd(out, freeStroke(1, 50, random));
+        byte[] torn = Arrays.copyOf(out.toByteArray(), out.size() - 3);
+
+        AnnotationCodec.Journal journal = AnnotationCodec.read(ByteBuffer.wrap(torn));
+        assertEquals(intact, journal.validBytes);
+
+        // What the store does on open: cut back to the intact prefix, then keep appending
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(torn, 0, journal.validBytes);
+        Stroke next = freeStroke(2, 50, random);
+        AnnotationCodec.writeAdd(file, next);
+        journal = AnnotationCodec.read(ByteBuffer.wrap(file.toByteArray()));
+        assertEquals(2, journal.strokes.size());
+        assertSameStroke(first, journal.strokes.get(0));
+        assertSameStroke(next, journal.strokes.get(1));
+        assertEquals(file.size(), journal.validBytes);
+    }
+
+    @Test
+    public void garbageTailIsTornNotFatal() throws IOException {
+        Random random = new Random(7);
+        Stroke first = freeStroke(0, 20, random);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnnotationCodec.writeHeader(out);
+        AnnotationCodec.writeAdd(out, first);
+        int intact = out.size();
+
+        // Unknown record type
+        ByteArrayOutputStream unknown = new ByteArrayOutputStream();
+        unknown.write(out.toByteArray(), 0, intact);
+        unknown.write(0x7f);
+        unknown.write(1);
+        AnnotationCodec.Journal journal = AnnotationCodec.read(ByteBuffer.wrap(unknown.toByteArray()));
+        assertEquals(1, journal.strokes.size());
+        assertEquals(intact, journal.validBytes);
+
+        // ADD whose point count is negative once narrowed, then one far past the end of the file
+        for (long count : new long[]{0x80000000L, 1L << 40, 1000}) {
+            ByteArrayOutputStream bad = new ByteArrayOutputStream();
+            bad.write(out.toByteArray(), 0, intact);
+            bad.write(AnnotationCodec.ADD);
+            AnnotationCodec.writeVarint(bad, 9);
+            bad.write(0);
+            bad.write(new byte[8], 0, 8);
+            bad.write(0);
+            AnnotationCodec.writeVarint(bad, count);
+            bad.write(new byte[16], 0, 16);
+            journal = AnnotationCodec.read(ByteBuffer.wrap(bad.toByteArray()));
+            assertEquals(1, journal.strokes.size());
+            assertSameStroke(first, journal.strokes.get(0));
+            assertEquals(intact, journal.validBytes);
+        }
+    }
+
+    @Test
+    public void strokesWithTooFewPointsAreSkipped() throws IOException {
+        Stroke last = freeStroke(3, 10, new Random(9));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnnotationCodec.writeHeader(out);
+        // A one-point line, a one-point circle and an empty free stroke
+        int[][] records = {{1, DrawingView.Shape.LINE.ordinal(), 1},
+                {2, DrawingView.Shape.CIRCLE.ordinal(), 1}, {0, DrawingView.Shape.FREE.ordinal(), 0}};
+        for (int[] r : records) {
+            out.write(AnnotationCodec.ADD);
+            AnnotationCodec.writeVarint(out, r[0]);
+            out.write(r[1]);
+            out.write(new byte[8], 0, 8);
+            out.write(0);
+            AnnotationCodec.writeVarint(out, r[2]);
+            for (int i = 0; i < r[2] * 2; i++) AnnotationCodec.writeVarint(out, 16);
+        }
+        AnnotationCodec.writeAdd(out, last);
+
+        AnnotationCodec.Journal journal = AnnotationCodec.read(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(4, journal.records);
+        assertEquals(out.size(), journal.validBytes);
+        assertEquals(1, journal.strokes.size());
+        assertSameStroke(last, journal.strokes.get(0));
+    }
+
+    @Test
+    public void emptyFileHasNoStrokes() throws IOException {
+        assertTrue(AnnotationCodec.read(ByteBuffer.allocate(0)).strokes.isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFiles() throws IOException {
+        AnnotationCodec.read(ByteBuffer.wrap("not annotations".getBytes()));
+    }
+
+    @Test
+    public void varintsRoundTrip() throws IOException {
+        long[] values = {0, 1, -1, 63, -64, 1L << 40, Long.MIN_VALUE, Long.MAX_VALUE};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long v : values) AnnotationCodec.writeVarint(out, AnnotationCodec.zigzag(v));
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+        for (long v : values) assertEquals(v, AnnotationCodec.unzigzag(AnnotationCodec.readVarint(in)));
+    }
+}
@@ -0,0 +1,143 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EditLogTest {
+
+    private static final StrokeStyle RED = StrokeStyle.of(0xffff0000, 5f);
+    private static final StrokeStyle BLUE = StrokeStyle.of(0xff0000ff, 9f);
+
+    private static Stroke line(int id) {
+        return new Stroke(id, DrawingView.Shape.LINE, RED, new float[]{id, 0, id + 10, 10}, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /** Applies operations and records them, like DrawingView does for user edits. */
+    private static class Canvas implements EditLog.Target {
+        final List<Stroke> strokes = new ArrayList<>();
+        StrokeStyle style = RED;
+        final EditLog log;
+
+        Canvas(EditLog log) {
+            this.log = log;
+        }
+
+        void draw(Stroke s) {
+            strokes.add(s);
+            log.recordAdd(s);
+        }
+
+        void erase(Stroke s) {
+            strokes.remove(s);
+            log.recordErase(s);
+        }
+
+        void clearAll() {
+            log.recordClear(new ArrayList<>(strokes));
+            strokes.clear();
+        }
+
+        void pick(StrokeStyle next) {
+            log.recordStyle(style, next);
+            style = next;
+        }
+
+        @Override public void addStroke(Stroke s) { strokes.add(s); }
+        @Override public void eraseStroke(Stroke s) { strokes.remove(s); }
+        @Override public void clearStrokes() { strokes.clear(); }
+        @Override public void restoreStrokes(List<Stroke> restored) { strokes.addAll(restored); }
+        @Override public void setStyle(StrokeStyle s) { style = s; }
+    }
+
+    @Test
+    public void undoAndRedoWalkTheHistory() {
+        Canvas c = new Canvas(new EditLog(1 << 20));
+        Stroke a = line(0), b = line(1);
+        c.draw(a);
+        c.draw(b);
+        c.pick(BLUE);
+        c.erase(a);
+        c.clearAll();
+        assertTrue(c.strokes.isEmpty());
+
+        assertTrue(c.log.undo(c));
+        assertEquals(Arrays.asList(b), c.strokes);
+        assertTrue(c.log.undo(c));
+        assertEquals(2, c.strokes.size());
+        assertTrue(c.log.undo(c));
+        assertSame(RED, c.style);
+        assertTrue(c.log.undo(c));
+        assertEquals(Arrays.asList(a), c.strokes);
+        assertTrue(c.log.undo(c));
+        assertFalse(c.log.undo(c));
+        assertTrue(c.strokes.isEmpty());
+
+        while (c.log.redo(c)) { }
+        assertTrue(c.strokes.isEmpty());
+        assertSame(BLUE, c.style);
+        assertFalse(c.log.canRedo());
+    }
+
+    @Test
+    public void recordingAfterUndoDropsRedoTail() {
+        Canvas c = new Canvas(new EditLog(1 << 20));
+        c.draw(line(0));
+        c.draw(line(1));
+        c.log.undo(c);
+        assertTrue(c.log.canRedo());
+        c.draw(line(2));
+        assertFalse(c.log.canRedo());
+        assertEquals(2, c.log.size());
+    }
+
+    @Test
+    public void budgetEvictsOldestEntries() {
+        int entry = 32 + line(0).sizeInBytes();
+        EditLog log = new EditLog(3L * entry);
+        Canvas c = new Canvas(log);
+        for (int i = 0; i < 10; i++) c.draw(line(i));
+        assertEquals(3, log.size());
+        assertEquals(3L * entry, log.getRetainedBytes());
+        for (int i = 0; i < 3; i++) assertTrue(log.undo(c));
+        assertFalse(log.undo(c));
+        assertEquals(7, c.strokes.size());
+
+        // With nothing left to undo, shrinking the budget drops redo entries instead
+        log.setBudgetBytes(entry);
+        assertEquals(1, log.size());
+        assertTrue(log.redo(c));
+        assertEquals(8, c.strokes.size());
+        assertEquals(7, c.strokes.get(7).id);
+    }
+
+    @Test
+    public void ringWrapsAtEntryLimit() {
+        EditLog log = new EditLog(Long.MAX_VALUE, 4);
+        Canvas c = new Canvas(log);
+        for (int i = 0; i < 9; i++) c.draw(line(i));
+        assertEquals(4, log.size());
+        for (int i = 8; i >= 5; i--) {
+            log.undo(c);
+            assertEquals(i, c.strokes.size());
+        }
+        assertFalse(log.canUndo());
+        for (int i = 0; i < 4; i++) log.redo(c);
+        assertEquals(9, c.strokes.size());
+    }
+
+    @Test
+    public void clearSharesStrokesInsteadOfCopying() {
+        EditLog log = new EditLog(1 << 20);
+        Canvas c = new Canvas(log);
+        Stroke a = line(0);
+        c.draw(a);
+        c.clearAll();
+        log.undo(c);
+        assertSame(a, c.strokes.get(0));
+    }
+}
@@ -0,0 +1,70 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameIndexTest {
+
+    // 240 fps, decode order with a B-frame swap, keyframe every 8 frames
+    private static FrameIndex build240fps(int frames) {
+        FrameIndex.Builder builder = new FrameIndex.Builder();
+        for (int i = 0; i < frames; i += 2) {
+            builder.add(i * 1_000_000L / 240, i % 8 == 0);
+            if (i + 1 < frames) builder.add((i + 1) * 1_000_000L / 240, false);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void stepsOneFrameAtHighFrameRate() {
+        FrameIndex index = build240fps(2400);
+        assertEquals(2400, index.size());
+        int frame = index.frameAtMs(1000);
+        assertEquals(240, frame);
+        int next = index.step(frame, 1);
+        assertEquals(241, next);
+        // Seeking to the truncated millisecond must resolve back to the same frame
+        assertEquals(next, index.frameAtMs(index.positionMs(next)));
+        assertEquals(240, index.frameAtMs(index.positionMs(index.step(next, -1))));
+    }
+
+    @Test
+    public void handlesVariableFrameRate() {
+        FrameIndex index = new FrameIndex.Builder()
+                .add(0, true).add(40_000, false).add(50_000, false).add(120_000, false).add(121_000, true)
+                .build();
+        assertEquals(2, index.frameAtMs(60));
+        assertEquals(3, index.step(index.frameAtMs(60), 1));
+        assertEquals(4, index.frameAtMs(index.positionMs(4)));
+        assertEquals(3, index.frameAtMs(index.positionMs(3)));
+    }
+
+    @Test
+    public void clampsAtEnds() {
+        FrameIndex index = build240fps(10);
+        assertEquals(0, index.step(0, -1));
+        assertEquals(9, index.step(9, 1));
+        assertEquals(0, index.frameAtMs(0));
+    }
+
+    @Test
+    public void tracksKeyFrames() {
+        FrameIndex index = build240fps(100);
+        assertTrue(index.isKeyFrame(0));
+        assertTrue(index.isKeyFrame(64));
+        assertFalse(index.isKeyFrame(65));
+        assertEquals(64, index.keyFrameAtOrBefore(70));
+        assertEquals(72, index.nextKeyFrame(64));
+        assertEquals(100, index.nextKeyFrame(96));
+    }
+
+    @Test
+    public void segmentsStopAtKeyFramesAndBudget() {
+        FrameIndex index = build240fps(100);
+        assertEquals(64, index.segmentStart(70, 100));
+        assertEquals(56, index.segmentStart(64, 100));
+        assertEquals(66, index.segmentStart(70, 4));
+        assertEquals(0, index.segmentStart(1, 10));
+    }
+}
@@ -0,0 +1,79 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class FrameInterpolatorTest {
+
+    private static final int SIZE = 64;
+    private static final int BLACK = 0xff000000;
+    private static final int WHITE = 0xffffffff;
+
+    private static int[] frameWithSquare(int left, int top, int side) {
+        int[] pixels = new int[SIZE * SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                boolean in = x >= left && x < left + side && y >= top && y < top + side;
+                pixels[y * SIZE + x] = in ? WHITE : BLACK;
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    public void midpointFollowsMotionInsteadOfCrossFading() {
+        int[] a = frameWithSquare(8, 24, 16);
+        int[] b = frameWithSquare(24, 24, 16);
+        FrameInterpolator interpolator = new FrameInterpolator(SIZE, SIZE, new ForkJoinPool(2));
+        interpolator.estimate(a, b);
+
+        int[] out = new int[SIZE * SIZE];
+        interpolator.interpolate(a, b, 0.5f, out);
+
+        assertArrayEquals(frameWithSquare(16, 24, 16), out);
+    }
+
+    @Test
+    public void endpointsReproduceInputs() {
+        int[] a = frameWithSquare(8, 8, 16);
+        int[] b = frameWithSquare(12, 20, 16);
+        FrameInterpolator interpolator = new FrameInterpolator(SIZE, SIZE, new ForkJoinPool(2));
+        interpolator.estimate(a, b);
+
+        int[] out = new int[SIZE * SIZE];
+        interpolator.interpolate(a, b, 0f, out);
+        assertArrayEquals(a, out);
+        interpolator.interpolate(a, b, 1f, out);
+        assertArrayEquals(b, out);
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        int[] a = new int[SIZE * SIZE];
+        int[] b = new int[SIZE * SIZE];
+        java.util.Random random = new java.util.Random(7);
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextInt() | BLACK;
+            b[i] = random.nextInt() | BLACK;
+        }
+        int[] sequential = new int[a.length];
+        int[] parallel = new int[a.length];
+
+        FrameInterpolator one = new FrameInterpolator(SIZE, SIZE, new ForkJoinPool(1));
+        one.estimate(a, b);
+        one.interpolate(a, b, 0.3f, sequential);
+        FrameInterpolator many = new FrameInterpolator(SIZE, SIZE, new ForkJoinPool(4));
+        many.estimate(a, b);
+        many.interpolate(a, b, 0.3f, parallel);
+
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShortBuffers() {
+        new FrameInterpolator(SIZE, SIZE, ForkJoinPool.commonPool()).estimate(new int[10], new int[SIZE * SIZE]);
+    }
+}
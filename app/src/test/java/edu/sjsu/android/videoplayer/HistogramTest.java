@@ -0,0 +1,57 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void percentilesFollowBuckets() {
+        Histogram h = new Histogram("seek", "ms", 10, 20, 50, 100);
+        for (int i = 0; i < 90; i++) h.record(8);
+        for (int i = 0; i < 9; i++) h.record(45);
+        h.record(400);
+
+        assertEquals(100, h.getCount());
+        assertEquals(10, h.percentile(0.5));
+        assertEquals(50, h.percentile(0.95));
+        assertEquals(400, h.percentile(1.0));
+        assertEquals(400, h.getMax());
+        assertEquals((90 * 8 + 9 * 45 + 400) / 100.0, h.getMean(), 1e-9);
+    }
+
+    @Test
+    public void exponentialBucketsCoverLimit() {
+        Histogram h = Histogram.exponential("draw", "us", 1000);
+        h.record(0);
+        h.record(700);
+        h.record(5000);
+        assertEquals(1, h.percentile(0.3));
+        assertEquals(1024, h.percentile(0.6));
+        assertEquals(5000, h.percentile(1.0));
+    }
+
+    @Test
+    public void recordsFromManyThreads() throws InterruptedException {
+        Histogram h = Histogram.exponential("x", "ms", 1024);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) h.record(i % 100);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(40_000, h.getCount());
+        assertEquals(99, h.getMax());
+
+        StringBuilder json = new StringBuilder();
+        h.appendJson(json);
+        assertTrue(json.toString().startsWith("{\"name\":\"x\""));
+
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.percentile(0.5));
+    }
+}
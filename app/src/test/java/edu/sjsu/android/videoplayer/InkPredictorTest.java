@@ -0,0 +1,62 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InkPredictorTest {
+
+    private final float[] out = new float[2 * InkPredictor.MAX_POINTS];
+
+    @Test
+    public void extrapolatesConstantVelocity() {
+        InkPredictor predictor = new InkPredictor(1000);
+        for (int t = 0; t <= 32; t += 8) predictor.add(10 + t, 50 - 0.5f * t, t);
+
+        assertEquals(InkPredictor.MAX_POINTS, predictor.predict(16, out));
+        // 1 px/ms right and 0.5 px/ms up, 16 ms ahead of (42, 34), in four steps
+        for (int p = 0; p < InkPredictor.MAX_POINTS; p++) {
+            float ahead = 4 * (p + 1);
+            assertEquals(42 + ahead, out[2 * p], 1e-3);
+            assertEquals(34 - 0.5f * ahead, out[2 * p + 1], 1e-3);
+        }
+    }
+
+    @Test
+    public void predictionIsCapped() {
+        InkPredictor predictor = new InkPredictor(10);
+        for (int t = 0; t <= 24; t += 8) predictor.add(t * 5, 0, t);
+        predictor.predict(16, out);
+        assertEquals(120 + 10, out[2 * (InkPredictor.MAX_POINTS - 1)], 1e-3);
+    }
+
+    @Test
+    public void restingPenPredictsNothing() {
+        InkPredictor predictor = new InkPredictor(100);
+        for (int t = 0; t <= 40; t += 8) predictor.add(100, 100, t);
+        assertEquals(0, predictor.predict(16, out));
+    }
+
+    @Test
+    public void needsRecentSamples() {
+        InkPredictor predictor = new InkPredictor(100);
+        predictor.add(0, 0, 0);
+        predictor.add(10, 0, 8);
+        assertEquals(0, predictor.predict(16, out));
+        // Samples older than the window no longer count
+        predictor.add(20, 0, 8 + InkPredictor.WINDOW_MS + 1);
+        assertEquals(0, predictor.predict(16, out));
+        predictor.reset();
+        assertEquals(0, predictor.predict(16, out));
+    }
+
+    @Test
+    public void followsTheLatestDirection() {
+        InkPredictor predictor = new InkPredictor(1000);
+        for (int t = 0; t < 100; t += 8) predictor.add(t, 0, t);
+        for (int t = 100; t <= 140; t += 8) predictor.add(100, t - 100, t);
+        predictor.predict(16, out);
+        assertTrue(out[1] > 40);
+        assertTrue(Math.abs(out[0] - 100) < 2);
+    }
+}
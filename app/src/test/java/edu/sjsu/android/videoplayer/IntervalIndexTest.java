@@ -0,0 +1,70 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntervalIndexTest {
+
+    @Test
+    public void queryMatchesBruteForce() {
+        Random random = new Random(42);
+        IntervalIndex<Integer> index = new IntervalIndex<>();
+        long[][] ranges = new long[2000][];
+        for (int i = 0; i < ranges.length; i++) {
+            long start = random.nextInt(60_000_000);
+            long end = start + 1 + random.nextInt(3_000_000);
+            ranges[i] = new long[]{start, end};
+            index.add(i, start, end);
+        }
+        // Middle, last and first, so swapped-in items must keep their own ranges
+        for (int gone : new int[]{7, 1999, 0, 1998}) {
+            assertTrue(index.remove(gone));
+            ranges[gone] = null;
+        }
+        assertFalse(index.remove(7));
+        assertEquals(1996, index.size());
+
+        List<Integer> out = new ArrayList<>();
+        for (int probe = 0; probe < 200; probe++) {
+            long t = random.nextInt(64_000_000);
+            out.clear();
+            index.query(t, out);
+            int expected = 0;
+            for (long[] r : ranges) {
+                if (r != null && t >= r[0] && t < r[1]) expected++;
+            }
+            assertEquals(expected, out.size());
+            for (int id : out) {
+                assertTrue(t >= ranges[id][0] && t < ranges[id][1]);
+            }
+        }
+    }
+
+    @Test
+    public void windowBracketsTheNextChange() {
+        IntervalIndex<String> index = new IntervalIndex<>();
+        index.add("a", 100, 200);
+        index.add("b", 150, 400);
+        index.add("pinned", Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertEquals(150, index.windowStart(170));
+        assertEquals(200, index.windowEnd(170));
+        assertEquals(400, index.windowStart(500));
+        assertEquals(Long.MAX_VALUE, index.windowEnd(500));
+
+        List<String> out = new ArrayList<>();
+        index.query(200, out);
+        assertEquals(2, out.size());
+        assertFalse(out.contains("a"));
+
+        index.clear();
+        out.clear();
+        index.query(200, out);
+        assertTrue(out.isEmpty());
+    }
+}
@@ -0,0 +1,73 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MotionEnergyTest {
+
+    @Test
+    public void energyIsMeanAbsoluteDifferencePerBin() {
+        MotionEnergy energy = new MotionEnergy(4, 1, 100_000, 1_000_000);
+        Arrays.fill(energy.frameBuffer(), (byte) 10);
+        energy.commit(0);
+        Arrays.fill(energy.frameBuffer(), (byte) 30);
+        energy.commit(33_000);
+        byte[] next = energy.frameBuffer();
+        Arrays.fill(next, (byte) 30);
+        next[0] = (byte) 200;
+        energy.commit(66_000);
+        Arrays.fill(energy.frameBuffer(), (byte) 30);
+        energy.commit(150_000);
+
+        assertEquals(2, energy.getBinCount());
+        // Bin 0 keeps the larger of 20 and 170/4
+        assertEquals(42.5f, energy.getCurve()[0], 1e-6);
+        assertEquals(42.5f, energy.getCurve()[1], 1e-6);
+    }
+
+    @Test
+    public void binsGrowPastTheExpectedDuration() {
+        MotionEnergy energy = new MotionEnergy(1, 1, 100_000, 0);
+        energy.commit(0);
+        energy.frameBuffer()[0] = 5;
+        energy.commit(2_000_000);
+        assertEquals(21, energy.getBinCount());
+        assertEquals(5f, energy.getCurve()[20], 1e-6);
+    }
+
+    @Test
+    public void findsBurstsAboveTheBaseline() {
+        float[] curve = new float[200];
+        for (int i = 0; i < curve.length; i++) curve[i] = 0.2f + (i % 3) * 0.05f;
+        for (int i = 50; i < 60; i++) curve[i] = 12f;
+        for (int i = 120; i < 140; i++) curve[i] = 9f;
+        curve[90] = 30f; // single-bin spike
+
+        int[] segments = MotionEnergy.findSegments(curve, curve.length, 3, 4f, 1.5f, 4, 5);
+
+        assertEquals(4, segments.length);
+        assertTrue(Math.abs(segments[0] - 50) <= 1);
+        assertTrue(Math.abs(segments[1] - 60) <= 1);
+        assertTrue(Math.abs(segments[2] - 120) <= 1);
+        assertTrue(Math.abs(segments[3] - 140) <= 1);
+    }
+
+    @Test
+    public void mergesNearbyRuns() {
+        float[] curve = new float[100];
+        for (int i = 20; i < 30; i++) curve[i] = 10f;
+        for (int i = 33; i < 40; i++) curve[i] = 10f;
+        int[] segments = MotionEnergy.findSegments(curve, curve.length, 1, 4f, 1f, 3, 5);
+        assertArrayEquals(new int[]{20, 40}, segments);
+    }
+
+    @Test
+    public void quietClipHasNoSegments() {
+        float[] curve = new float[50];
+        Arrays.fill(curve, 0.5f);
+        assertEquals(0, MotionEnergy.findSegments(curve, curve.length, 5, 4f, 1.5f, 3, 10).length);
+    }
+}
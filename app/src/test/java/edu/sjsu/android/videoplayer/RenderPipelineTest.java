@@ -0,0 +1,149 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class RenderPipelineTest {
+
+    private static final int W = 4, H = 3;
+    private static final long FRAME_US = 33_333;
+    private static final int RED = 0xffff0000;
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    /** Frame i is solid grey level i at i * FRAME_US. */
+    private static RenderPipeline.Source source(int frames) {
+        int[] next = {0};
+        return frame -> {
+            if (next[0] >= frames) return false;
+            int v = next[0];
+            Arrays.fill(frame.pixels, 0xff000000 | v << 16 | v << 8 | v);
+            frame.sourceUs = v * FRAME_US;
+            next[0]++;
+            return true;
+        };
+    }
+
+    private static final RenderPipeline.Compositor MARK = frame -> frame.pixels[0] = RED;
+
+    private static class RecordingSink implements RenderPipeline.FrameSink {
+        final IdentityHashMap<RenderPipeline.Frame, Boolean> seen = new IdentityHashMap<>();
+        int written;
+        boolean finished, aborted;
+
+        @Override public void start(int width, int height) {}
+        @Override public void write(RenderPipeline.Frame frame) {
+            seen.put(frame, true);
+            written++;
+        }
+        @Override public void finish() { finished = true; }
+        @Override public void abort() { aborted = true; }
+    }
+
+    @Test
+    public void rendersRangeToImageSequence() throws Exception {
+        File dir = temp.newFolder("render");
+        RenderPipeline pipeline = new RenderPipeline(W, H, 10 * FRAME_US, 20 * FRAME_US, 0.5f);
+
+        int written = pipeline.run(source(30), MARK, new ImageSequenceSink(dir), null);
+
+        assertEquals(10, written);
+        List<String> times = Files.readAllLines(new File(dir, ImageSequenceSink.TIMESTAMPS).toPath());
+        assertEquals(10, times.size());
+        for (int k = 0; k < 10; k++) {
+            assertEquals(Math.round(k * FRAME_US / 0.5), Long.parseLong(times.get(k)));
+            byte[] ppm = Files.readAllBytes(ImageSequenceSink.frameFile(dir, k).toPath());
+            String header = "P6\n4 3\n255\n";
+            assertEquals(header, new String(ppm, 0, header.length(), StandardCharsets.US_ASCII));
+            int body = header.length();
+            assertEquals(W * H * 3, ppm.length - body);
+            assertEquals(255, ppm[body] & 0xff);
+            assertEquals(0, ppm[body + 1] & 0xff);
+            assertEquals(10 + k, ppm[body + 3] & 0xff);
+        }
+    }
+
+    @Test
+    public void dropsFramesCloserThanMinimumInterval() throws Exception {
+        RenderPipeline pipeline = new RenderPipeline(W, H, 0, 30 * FRAME_US, 4f);
+        pipeline.setMinFrameIntervalUs(16_000);
+        RecordingSink sink = new RecordingSink();
+        // 4x compresses the 33 ms spacing to 8.3 ms, so every other frame goes
+        assertEquals(15, pipeline.run(source(30), MARK, sink, null));
+        assertTrue(sink.finished);
+    }
+
+    @Test
+    public void framesComeFromBoundedPool() throws Exception {
+        RenderPipeline pipeline = new RenderPipeline(W, H, 0, 1000 * FRAME_US, 1f);
+        pipeline.setQueueDepth(2);
+        RecordingSink sink = new RecordingSink();
+        assertEquals(1000, pipeline.run(source(1000), MARK, sink, null));
+        assertTrue(sink.seen.size() <= pipeline.poolSize());
+    }
+
+    @Test
+    public void cancelAbortsSink() throws Exception {
+        RenderPipeline pipeline = new RenderPipeline(W, H, 0, 1000 * FRAME_US, 1f);
+        RecordingSink sink = new RecordingSink();
+        try {
+            pipeline.run(source(1000), MARK, sink, (frames, fraction) -> {
+                if (frames == 3) pipeline.cancel();
+            });
+            fail();
+        } catch (CancellationException expected) {
+            assertTrue(sink.aborted);
+            assertFalse(sink.finished);
+            assertEquals(3, sink.written);
+        }
+    }
+
+    @Test
+    public void stageFailureSurfacesOnCaller() throws Exception {
+        RenderPipeline pipeline = new RenderPipeline(W, H, 0, 100 * FRAME_US, 1f);
+        RecordingSink sink = new RecordingSink();
+        AtomicBoolean thrown = new AtomicBoolean();
+        RenderPipeline.Source failing = frame -> {
+            if (thrown.getAndSet(true)) throw new IOException("decoder gone");
+            frame.sourceUs = 0;
+            return true;
+        };
+        try {
+            pipeline.run(failing, MARK, sink, null);
+            fail();
+        } catch (IOException expected) {
+            assertEquals("decoder gone", expected.getMessage());
+            assertTrue(sink.aborted);
+        }
+    }
+
+    @Test
+    public void abortRemovesWrittenFiles() throws Exception {
+        File dir = temp.newFolder("render");
+        RenderPipeline pipeline = new RenderPipeline(W, H, 0, 100 * FRAME_US, 1f);
+        try {
+            pipeline.run(source(100), MARK, new ImageSequenceSink(dir), (frames, fraction) -> {
+                if (frames == 5) pipeline.cancel();
+            });
+            fail();
+        } catch (CancellationException expected) {
+            String[] left = dir.list();
+            assertNotNull(left);
+            assertEquals(0, left.length);
+        }
+    }
+}
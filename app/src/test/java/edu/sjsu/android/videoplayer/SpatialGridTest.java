@@ -0,0 +1,98 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SpatialGridTest {
+
+    private static final class Box extends SpatialGrid.Entry {
+        final String name;
+
+        Box(String name) {
+            this.name = name;
+        }
+    }
+
+    private static List<String> names(List<Box> boxes) {
+        List<String> names = new ArrayList<>();
+        for (Box b : boxes) names.add(b.name);
+        return names;
+    }
+
+    @Test
+    public void queryReturnsOnlyNearbyItemsOnce() {
+        SpatialGrid<Box> grid = new SpatialGrid<>(50f);
+        grid.insert(new Box("big"), 0, 0, 400, 400);
+        grid.insert(new Box("small"), 10, 10, 20, 20);
+        grid.insert(new Box("far"), 1000, 1000, 1010, 1010);
+
+        List<Box> out = new ArrayList<>();
+        for (int round = 0; round < 2; round++) {
+            out.clear();
+            grid.query(0, 0, 120, 120, out);
+            assertEquals(2, out.size());
+            assertTrue(names(out).contains("big"));
+            assertTrue(names(out).contains("small"));
+        }
+
+        out.clear();
+        grid.query(1005, 1005, 1005, 1005, out);
+        assertEquals(1, out.size());
+        assertEquals("far", out.get(0).name);
+    }
+
+    @Test
+    public void removeAndClearKeepGridInSync() {
+        SpatialGrid<Box> grid = new SpatialGrid<>(50f);
+        Box a = new Box("a");
+        grid.insert(a, -80, -80, 80, 80);
+        grid.insert(new Box("b"), 0, 0, 10, 10);
+        grid.remove(a, -80, -80, 80, 80);
+
+        List<Box> out = new ArrayList<>();
+        grid.query(-100, -100, 100, 100, out);
+        assertEquals(1, out.size());
+        assertEquals("b", out.get(0).name);
+
+        grid.clear();
+        out.clear();
+        grid.query(-100, -100, 100, 100, out);
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    public void tableGrowsPastManyCells() {
+        SpatialGrid<Box> grid = new SpatialGrid<>(10f);
+        List<Box> boxes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Box b = new Box("b" + i);
+            boxes.add(b);
+            grid.insert(b, i * 10 + 1, -i * 10 + 1, i * 10 + 2, -i * 10 + 2);
+        }
+        List<Box> out = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            out.clear();
+            grid.query(i * 10 + 1, -i * 10 + 1, i * 10 + 1, -i * 10 + 1, out);
+            assertEquals(1, out.size());
+            assertSame(boxes.get(i), out.get(0));
+        }
+    }
+
+    @Test
+    public void geometryDistances() {
+        assertEquals(5f, StrokeGeometry.distanceToSegment(5, 5, 0, 0, 10, 0), 1e-4f);
+        assertEquals(5f, StrokeGeometry.distanceToSegment(-3, 4, 0, 0, 10, 0), 1e-4f);
+
+        float[] zigzag = {0, 0, 10, 10, 20, 0};
+        assertEquals(0f, StrokeGeometry.distanceToPolyline(15, 5, zigzag, zigzag.length), 1e-4f);
+        assertEquals(10f, StrokeGeometry.distanceToPolyline(10, 20, zigzag, zigzag.length), 1e-4f);
+
+        // Centre of a circle is a full radius away from its outline
+        assertEquals(50f, StrokeGeometry.distanceToRing(0, 0, 0, 0, 50), 1e-4f);
+        assertEquals(0f, StrokeGeometry.distanceToRing(30, 40, 0, 0, 50), 1e-4f);
+    }
+}
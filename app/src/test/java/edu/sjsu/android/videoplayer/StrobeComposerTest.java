@@ -0,0 +1,66 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class StrobeComposerTest {
+
+    private static final int SIZE = 32;
+    private static final int GRAY = 0xff808080;
+    private static final int RED = 0xffff0000;
+
+    private static int[] frameWithSquare(int left) {
+        int[] pixels = new int[SIZE * SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                boolean in = x >= left && x < left + 4 && y >= 14 && y < 18;
+                pixels[y * SIZE + x] = in ? RED : GRAY;
+            }
+        }
+        return pixels;
+    }
+
+    private static int[] compose(int[] positions, int maxSamples, ForkJoinPool pool) {
+        StrobeComposer composer = new StrobeComposer(SIZE, SIZE, maxSamples, StrobeComposer.DEFAULT_THRESHOLD, pool);
+        boolean[] mask = StrobeComposer.sampleMask(positions.length, maxSamples);
+        for (int i = 0; i < positions.length; i++) {
+            if (mask[i]) composer.addBackgroundSample(frameWithSquare(positions[i]));
+        }
+        composer.finishBackground();
+        for (int p : positions) composer.addFrame(frameWithSquare(p));
+        return composer.getResult();
+    }
+
+    @Test
+    public void everyPositionShowsOverMedianBackground() {
+        int[] positions = {2, 8, 14, 20, 26};
+        int[] out = compose(positions, 9, new ForkJoinPool(2));
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                boolean in = false;
+                for (int p : positions) in |= x >= p && x < p + 4 && y >= 14 && y < 18;
+                assertEquals("pixel " + x + "," + y, in ? RED : GRAY, out[y * SIZE + x]);
+            }
+        }
+    }
+
+    @Test
+    public void sampleMaskSpreadsEvenly() {
+        assertArrayEquals(new boolean[]{true, true, true}, StrobeComposer.sampleMask(3, 9));
+        assertArrayEquals(new boolean[]{false, true, false, false, true, false}, StrobeComposer.sampleMask(6, 2));
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        int[] positions = {0, 5, 10, 15, 20, 25, 28};
+        assertArrayEquals(compose(positions, 3, new ForkJoinPool(1)), compose(positions, 3, new ForkJoinPool(4)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void framesNeedBackgroundFirst() {
+        new StrobeComposer(SIZE, SIZE, 3, 60, ForkJoinPool.commonPool()).addFrame(frameWithSquare(0));
+    }
+}
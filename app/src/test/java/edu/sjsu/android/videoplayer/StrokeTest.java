@@ -0,0 +1,41 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StrokeTest {
+
+    @Test
+    public void stylesAreInterned() {
+        StrokeStyle a = StrokeStyle.of(0xffff0000, 5f);
+        assertSame(a, StrokeStyle.of(0xffff0000, 5f));
+        assertSame(a, StrokeStyle.byId(a.id));
+        assertFalse(a == StrokeStyle.of(0xffff0000, 6f));
+    }
+
+    @Test
+    public void boundsIncludeHalfWidthAndCircleExtent() {
+        StrokeStyle style = StrokeStyle.of(0xff00ff00, 10f);
+        Stroke circle = new Stroke(1, DrawingView.Shape.CIRCLE, style, new float[]{100, 100, 130, 140}, 0, Long.MAX_VALUE);
+        assertEquals(45f, circle.left, 1e-4f);
+        assertEquals(155f, circle.bottom, 1e-4f);
+
+        Stroke free = new Stroke(2, DrawingView.Shape.FREE, style, new float[]{0, 0, 50, 20, 10, 40}, 0, Long.MAX_VALUE);
+        assertEquals(-5f, free.left, 1e-4f);
+        assertEquals(55f, free.right, 1e-4f);
+        assertEquals(45f, free.bottom, 1e-4f);
+    }
+
+    @Test
+    public void hitTestFollowsGeometry() {
+        StrokeStyle style = StrokeStyle.of(0xff0000ff, 4f);
+        Stroke circle = new Stroke(1, DrawingView.Shape.CIRCLE, style, new float[]{0, 0, 100, 0}, 0, Long.MAX_VALUE);
+        assertFalse(circle.hitTest(0, 0, 10));
+        assertTrue(circle.hitTest(0, 105, 10));
+
+        Stroke line = new Stroke(2, DrawingView.Shape.LINE, style, new float[]{0, 0, 100, 100}, 0, Long.MAX_VALUE);
+        assertTrue(line.hitTest(50, 55, 10));
+        assertFalse(line.hitTest(100, 0, 10));
+    }
+}
@@ -0,0 +1,48 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThumbnailScheduleTest {
+
+    // 30 fps with a keyframe every `gop` frames
+    private static FrameIndex build30fps(int frames, int gop) {
+        FrameIndex.Builder builder = new FrameIndex.Builder();
+        for (int i = 0; i < frames; i++) builder.add(i * 1_000_000L / 30, i % gop == 0);
+        return builder.build();
+    }
+
+    @Test
+    public void coarseToFineVisitsEverySlotOnce() {
+        assertArrayEquals(new int[]{0, 4, 2, 6, 1, 3, 5, 7}, ThumbnailSchedule.coarseToFine(8));
+        assertArrayEquals(new int[]{0, 8, 4, 2, 6, 1, 3, 5, 7, 9}, ThumbnailSchedule.coarseToFine(10));
+    }
+
+    @Test
+    public void keyFramesComeBeforeRefinements() {
+        FrameIndex index = build30fps(300, 30);
+        long[] times = ThumbnailSchedule.build(index, 10);
+
+        assertEquals(20, times.length);
+        assertEquals(0, times[0]);
+        assertEquals(index.timeUs(240), times[1]);
+        for (int i = 0; i < 10; i++) assertTrue(index.isKeyFrame(index.frameAt(times[i])));
+        // Refinements land within a frame of each slot centre
+        for (int i = 10; i < 20; i++) assertFalse(index.isKeyFrame(index.frameAt(times[i])));
+        assertEquals(500_000, times[10], 34_000);
+        assertEquals(8_500_000, times[11], 34_000);
+    }
+
+    @Test
+    public void denseKeyFramesNeedNoRefinement() {
+        FrameIndex index = build30fps(300, 1);
+        long[] times = ThumbnailSchedule.build(index, 10);
+        assertEquals(10, times.length);
+    }
+
+    @Test
+    public void emptyIndexYieldsNothing() {
+        assertEquals(0, ThumbnailSchedule.build(new FrameIndex.Builder().build(), 16).length);
+    }
+}
@@ -0,0 +1,62 @@
+package edu.sjsu.android.videoplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZoomTransformTest {
+
+    private static ZoomTransform viewport() {
+        ZoomTransform zoom = new ZoomTransform(8f);
+        zoom.setViewport(1000, 500);
+        return zoom;
+    }
+
+    @Test
+    public void zoomKeepsFocusPointFixed() {
+        ZoomTransform zoom = viewport();
+        zoom.zoomBy(2f, 400, 300);
+        assertEquals(2f, zoom.getScale(), 0);
+        assertEquals(400f, zoom.toContentX(400), 1e-3);
+        assertEquals(300f, zoom.toContentY(300), 1e-3);
+        zoom.zoomBy(1.5f, 100, 100);
+        float cx = zoom.toContentX(100), cy = zoom.toContentY(100);
+        zoom.zoomBy(1.2f, 100, 100);
+        assertEquals(cx, zoom.toContentX(100), 1e-3);
+        assertEquals(cy, zoom.toContentY(100), 1e-3);
+    }
+
+    @Test
+    public void scaleIsBounded() {
+        ZoomTransform zoom = viewport();
+        zoom.zoomBy(0.5f, 500, 250);
+        assertTrue(zoom.isIdentity());
+        zoom.zoomBy(100f, 500, 250);
+        assertEquals(8f, zoom.getScale(), 0);
+    }
+
+    @Test
+    public void panStopsAtContentEdges() {
+        ZoomTransform zoom = viewport();
+        zoom.zoomBy(2f, 0, 0);
+        zoom.panBy(300, 300);
+        assertEquals(0f, zoom.getTranslationX(), 0);
+        assertEquals(0f, zoom.getTranslationY(), 0);
+        zoom.panBy(-5000, -5000);
+        assertEquals(-1000f, zoom.getTranslationX(), 0);
+        assertEquals(-500f, zoom.getTranslationY(), 0);
+        // Bottom-right screen corner shows the bottom-right content corner
+        assertEquals(1000f, zoom.toContentX(1000), 1e-3);
+        assertEquals(500f, zoom.toContentY(500), 1e-3);
+    }
+
+    @Test
+    public void zoomingOutReturnsToIdentity() {
+        ZoomTransform zoom = viewport();
+        zoom.zoomBy(3f, 700, 100);
+        zoom.panBy(-50, -20);
+        zoom.zoomBy(1 / 3f, 200, 400);
+        assertTrue(zoom.isIdentity());
+        assertEquals(123f, zoom.toContentX(123), 0);
+    }
+}